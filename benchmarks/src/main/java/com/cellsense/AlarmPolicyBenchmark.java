@@ -0,0 +1,52 @@
+package com.cellsense;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.Preferences;
+
+// The checkAlarms decision for a spread of readings, with settings from the in-memory snapshot,
+// against the same decision with every setting read through java.util.prefs as it used to be.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlarmPolicyBenchmark {
+
+    private final PreferenceManager.Settings settings =
+            new PreferenceManager.Settings(true, 80, 20, "Classic Alarm", "Classic Alarm", true, true);
+    private final Preferences prefs = Preferences.userRoot().node("cellsense-benchmark");
+    private int tick;
+
+    @Setup
+    public void setup() {
+        prefs.putBoolean("alarm_active", true);
+        prefs.putDouble("max_limit", 80);
+        prefs.putDouble("min_limit", 20);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        prefs.removeNode();
+    }
+
+    @Benchmark
+    public AlarmPolicy.Decision decide() {
+        int t = tick++;
+        return AlarmPolicy.decide(t % 101, (t & 64) != 0, settings);
+    }
+
+    @Benchmark
+    public void legacyPrefsDecide(Blackhole bh) {
+        int t = tick++;
+        int level = t % 101;
+        boolean plugged = (t & 64) != 0;
+        if (!prefs.getBoolean("alarm_active", false)) { bh.consume(0); return; }
+        if (plugged && level >= prefs.getDouble("max_limit", 80)) bh.consume(1);
+        else if (!plugged && level <= prefs.getDouble("min_limit", 20)) bh.consume(2);
+        else bh.consume(3);
+    }
+}
@@ -0,0 +1,87 @@
+package com.cellsense;
+
+import com.cellsense.HistoryManager.DailyStat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+// Startup load (sample log scan folded into daily stats) and the per-sample save, from 1 to 10,000
+// days of history. The log only gets a record when the level or plug state changes; SAMPLES_PER_DAY
+// is a busy day's worth of those. legacySave is the old full CSV rewrite, for comparison.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryPersistenceBenchmark {
+
+    static final int SAMPLES_PER_DAY = 96;
+
+    @Param({"1", "100", "1000", "10000"})
+    public int days;
+
+    private Path dir;
+    private SampleLog log;
+    private HistoryStore stats;
+    private long nextEpoch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("cellsense-bench");
+        log = new SampleLog(dir.resolve("history.bin"));
+        stats = new HistoryStore();
+
+        long epoch = LocalDate.of(2000, 1, 1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        long step = 86_400 / SAMPLES_PER_DAY;
+        for (int i = 0; i < days * SAMPLES_PER_DAY; i++, epoch += step) {
+            log.append(epoch, 20 + i % 80, SampleLog.flags(i % 7 == 0, false));
+        }
+        nextEpoch = epoch;
+        HistoryManager.DayFold fold = new HistoryManager.DayFold(ZoneId.systemDefault(), stats);
+        log.scan(fold);
+        fold.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        try (var files = Files.list(dir)) {
+            for (Path p : files.toList()) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    // HistoryManager.loadData without the legacy CSV import
+    @Benchmark
+    public HistoryStore loadData() {
+        HistoryStore store = new HistoryStore();
+        HistoryManager.DayFold fold = new HistoryManager.DayFold(ZoneId.systemDefault(), store);
+        log.scan(fold);
+        fold.flush();
+        return store;
+    }
+
+    // HistoryManager.recordSample: one record appended, independent of how much history exists
+    @Benchmark
+    public void saveData() throws IOException {
+        log.append(nextEpoch++, 55, SampleLog.flags(false, false));
+    }
+
+    // What every save used to cost: the whole per-day CSV written again
+    @Benchmark
+    public void legacySave() throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve("history.csv"))) {
+            for (DailyStat stat : stats.getLastN(Integer.MAX_VALUE)) {
+                writer.write(stat.date + "," + stat.minLevel + "," + stat.maxLevel + "," + stat.startLevel);
+                writer.newLine();
+            }
+        }
+    }
+}
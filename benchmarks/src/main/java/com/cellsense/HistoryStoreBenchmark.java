@@ -0,0 +1,77 @@
+package com.cellsense;
+
+import com.cellsense.HistoryManager.DailyStat;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// HistoryStore against the HashMap + sort it replaced, at 10 years of daily entries
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryStoreBenchmark {
+
+    @Param({"3650"})
+    public int days;
+
+    private Map<String, DailyStat> legacy;
+    private HistoryStore store;
+    private LocalDate last;
+
+    @Setup
+    public void setup() {
+        legacy = new HashMap<>();
+        store = new HistoryStore();
+        LocalDate day = LocalDate.of(2016, 1, 1);
+        for (int i = 0; i < days; i++, day = day.plusDays(1)) {
+            DailyStat stat = new DailyStat(day.toString(), 20 + i % 30, 80 + i % 20, 50 + i % 40);
+            legacy.put(stat.date, stat);
+            store.put(stat);
+        }
+        last = day.minusDays(1);
+    }
+
+    // The previous HistoryManager.getLast7Days
+    @Benchmark
+    public List<DailyStat> legacyLast7() {
+        return legacy.values().stream()
+                .sorted(Comparator.comparing(s -> s.date))
+                .skip(Math.max(0, legacy.size() - 7))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<DailyStat> storeLast7() {
+        return store.getLastN(7);
+    }
+
+    // A month-long range had no direct equivalent before; the closest is sort and filter
+    @Benchmark
+    public List<DailyStat> legacyLast30Range() {
+        String from = last.minusDays(29).toString();
+        String to = last.toString();
+        return legacy.values().stream()
+                .filter(s -> s.date.compareTo(from) >= 0 && s.date.compareTo(to) <= 0)
+                .sorted(Comparator.comparing(s -> s.date))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<DailyStat> storeLast30Range() {
+        return store.getRange(last.minusDays(29), last);
+    }
+
+    @Benchmark
+    public void storeRecord() {
+        store.record(last, 42);
+    }
+}
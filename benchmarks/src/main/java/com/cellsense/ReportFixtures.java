@@ -0,0 +1,43 @@
+package com.cellsense;
+
+// Synthetic powercfg battery reports with the same markup as the real thing, grown to a target size.
+// Each section gets about a third of the rows, so every parser sees proportional work.
+public class ReportFixtures {
+
+    public static String generate(int targetBytes) {
+        // One row of each section is ~600 characters
+        int rows = Math.max(1, targetBytes / 600);
+        StringBuilder sb = new StringBuilder(targetBytes + 4096);
+
+        sb.append("<html><head><style>td{}</style><script type=\"text/javascript\">\nvar drainGraphData = [");
+        for (int i = 0; i < rows; i++) {
+            sb.append(String.format("{ x0: \"2025-%02d-%02dT%02d:%02d:00\", x1: \"2025-%02d-%02dT%02d:%02d:30\", y0: 0.%02d, y1: 0.5 },",
+                    1 + i / 40320 % 12, 1 + i / 1440 % 28, i / 60 % 24, i % 60,
+                    1 + i / 40320 % 12, 1 + i / 1440 % 28, i / 60 % 24, i % 60, 10 + i % 80));
+        }
+        sb.append("];\n</script></head><body><h1>Battery report</h1><table>")
+          .append("<tr><td><span class=\"label\">DESIGN CAPACITY</span></td><td>57,000 mWh\n</td></tr>")
+          .append("<tr><td><span class=\"label\">FULL CHARGE CAPACITY</span></td><td>50,240 mWh</td></tr>")
+          .append("<tr><td><span class=\"label\">CYCLE COUNT</span></td><td>321</td></tr></table>");
+
+        sb.append("<h2>Recent usage</h2><div>Power states</div><table>");
+        for (int i = 0; i < rows; i++) {
+            String date = i % 5 == 0 ? String.format("2025-%02d-%02d ", 1 + i / 40320 % 12, 1 + i / 1440 % 28) : "";
+            sb.append("<tr class=\"even dc 1\"><td class=\"dateTime\"><span class=\"date\">").append(date)
+              .append("</span><span class=\"time\">").append(String.format("%02d:%02d:24", i / 60 % 24, i % 60))
+              .append("</span></td><td class=\"state\">\n      Active\n    </td><td class=\"acdc\">\n      Battery\n    </td>")
+              .append("<td class=\"percent\">").append(i % 100).append(" %\n    </td><td class=\"mw\">42,")
+              .append(i % 1000).append(" mWh\n    </td></tr>\n");
+        }
+        sb.append("</table><h2>Battery usage</h2><table><tr><td class=\"dateTime\">x</td><td class=\"mw\">1</td><td class=\"mw\">2</td></tr></table>");
+
+        sb.append("<h2>Battery capacity history</h2><table>");
+        for (int i = 0; i < rows; i++) {
+            sb.append("<tr class=\"even 1\"><td class=\"dateTime\">").append(String.format("%06d", i))
+              .append(" - 2025-11-03</td><td class=\"mw\">50,").append(i % 1000)
+              .append(" mWh\n        </td><td class=\"mw\">57,000 mWh\n        </td></tr>\n");
+        }
+        sb.append("</table><h2>Battery life estimates</h2><table><tr><td class=\"dateTime\">y</td><td class=\"mw\">1</td><td class=\"mw\">2</td></tr></table></body></html>");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.cellsense;
+
+import com.cellsense.BatteryReportManager.CapacityRecord;
+import com.cellsense.BatteryReportManager.GraphPoint;
+import com.cellsense.BatteryReportManager.UsageRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Each report section parsed on its own, plus the one-pass index and summary lookups,
+// on synthetic reports from 10 KB to 20 MB. Run with -prof gc to see bytes allocated per parse.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportParserBenchmark {
+
+    @Param({"10240", "1048576", "20971520"})
+    public int bytes;
+
+    private String html;
+    private ReportIndex index;
+
+    @Setup
+    public void setup() {
+        html = ReportFixtures.generate(bytes);
+        index = ReportIndex.build(html);
+    }
+
+    private static BatteryReportParser.Handler sink(Blackhole bh) {
+        return new BatteryReportParser.Handler() {
+            @Override public void onGraphPoint(GraphPoint point) { bh.consume(point); }
+            @Override public void onUsage(UsageRecord record) { bh.consume(record); }
+            @Override public void onCapacity(CapacityRecord record) { bh.consume(record); }
+        };
+    }
+
+    @Benchmark
+    public ReportIndex buildIndex() {
+        return ReportIndex.build(html);
+    }
+
+    @Benchmark
+    public int parseDrainGraph(Blackhole bh) {
+        return BatteryReportParser.parseDrainGraph(html, index.drainGraphStart, index.drainGraphEnd, null, sink(bh));
+    }
+
+    @Benchmark
+    public int parseRecentUsage(Blackhole bh) {
+        return BatteryReportParser.parseRecentUsage(html, index.recentUsageStart, index.recentUsageEnd, null, sink(bh));
+    }
+
+    @Benchmark
+    public int parseCapacityHistory(Blackhole bh) {
+        return BatteryReportParser.parseCapacityHistory(html, index.capacityStart, index.capacityEnd, null, sink(bh));
+    }
+
+    // Replaces the old extractSimpleValue regex: the index already knows where each label is
+    @Benchmark
+    public void summaryValues(Blackhole bh) {
+        bh.consume(index.getSummaryValue(ReportIndex.DESIGN_CAPACITY));
+        bh.consume(index.getSummaryValue(ReportIndex.FULL_CHARGE_CAPACITY));
+        bh.consume(index.getSummaryValue(ReportIndex.CYCLE_COUNT));
+    }
+}
@@ -0,0 +1,46 @@
+package com.cellsense;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-sample cost of SampleRing (run with -prof gc to confirm 0 B/op) and its retained heap size.
+// The ring is pre-filled with a full day so every add also overwrites and rolls buckets over.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SampleRingBenchmark {
+
+    private SampleRing ring;
+    private long now;
+    private int level;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ring = new SampleRing();
+        now = 1_700_000_000_000L;
+        for (int i = 0; i < SampleRing.DAY_AT_2S; i++) add();
+
+        long retained = GraphLayout.parseInstance(ring).totalSize();
+        System.out.printf("%nSampleRing: %d samples, arrays %d bytes, retained heap %d bytes%n",
+                ring.size(), ring.footprintBytes(), retained);
+    }
+
+    @Benchmark
+    public void add() {
+        now += 2000;
+        level = (level + 1) % 101;
+        ring.add(now, level, (level & 64) != 0);
+    }
+
+    @Benchmark
+    public void lastHourMean(Blackhole bh) {
+        SampleRing.Rollup hours = ring.getHours();
+        bh.consume(hours.meanOf(hours.size() - 1));
+    }
+}
@@ -0,0 +1,18 @@
+#!/bin/sh
+# Stand-in for the WMI probe helper, for running CellSense on Linux:
+#   java -Dcellsense.battery.provider=wmi -Dcellsense.probe.command="sh scripts/fake_probe.sh" ...
+# Speaks the same protocol: reads "<id> <property>" lines, answers "<id> <value>".
+# FAKE_LEVEL, FAKE_STATUS (2 = AC) and FAKE_MILLIVOLTS set the answers; FAKE_DELAY (seconds) slows each one.
+# Two extra queries exist for ProbeChannelTest: "Hang" is never answered and "Exit" ends the helper.
+while IFS=' ' read -r id q; do
+  case "$q" in
+    EstimatedChargeRemaining) v=${FAKE_LEVEL:-80} ;;
+    BatteryStatus) v=${FAKE_STATUS:-2} ;;
+    DesignVoltage) v=${FAKE_MILLIVOLTS:-11400} ;;
+    Hang) continue ;;
+    Exit) exit 0 ;;
+    *) v= ;;
+  esac
+  [ -n "$FAKE_DELAY" ] && sleep "$FAKE_DELAY"
+  echo "$id $v"
+done
@@ -0,0 +1,51 @@
+package com.cellsense;
+
+// Turns a reading into alarm sound: AlarmPolicy decides, this starts or stops the speaker.
+// App calls check() on every threshold edge and when alarms are switched on; SoakTest drives
+// one with a recording speaker against the simulated battery.
+public class AlarmController {
+
+    // Where the alarm is played. The app uses SoundManager.
+    public interface Speaker {
+        void play(String soundName, boolean loop);
+        void stop();
+    }
+
+    public static final Speaker SOUND_MANAGER = new Speaker() {
+        @Override
+        public void play(String soundName, boolean loop) {
+            SoundManager.playAlarm(soundName, loop);
+        }
+
+        @Override
+        public void stop() {
+            SoundManager.stopAlarm();
+        }
+    };
+
+    private final Speaker speaker;
+
+    public AlarmController(Speaker speaker) {
+        this.speaker = speaker;
+    }
+
+    // Called on threshold edges, so a non-looping alarm sounds once per crossing
+    public AlarmPolicy.Decision check(BatterySnapshot snapshot) {
+        return check(snapshot, PreferenceManager.getSettings());
+    }
+
+    public AlarmPolicy.Decision check(BatterySnapshot snapshot, PreferenceManager.Settings settings) {
+        AlarmPolicy.Decision decision = AlarmPolicy.decide(snapshot.level, snapshot.plugged, settings);
+        switch (decision) {
+            case PLAY_MAX -> speaker.play(settings.maxSound, settings.maxLoop);
+            case PLAY_MIN -> speaker.play(settings.minSound, settings.minLoop);
+            default -> speaker.stop();
+        }
+        return decision;
+    }
+
+    // Alarms were switched off before any reading arrived
+    public void stop() {
+        speaker.stop();
+    }
+}
@@ -0,0 +1,28 @@
+package com.cellsense;
+
+// What the alarm should be doing for a given reading and settings. No state and no I/O:
+// AlarmController turns the decision into sound, App into labels; PowerEventBus uses the same zone tests for its edges.
+public class AlarmPolicy {
+
+    public enum Decision {
+        OFF,       // alarms switched off
+        QUIET,     // alarms on, level inside the limits
+        PLAY_MAX,  // charging at or above the max limit
+        PLAY_MIN   // on battery at or below the min limit
+    }
+
+    public static boolean atMax(int level, boolean plugged, double maxLimit) {
+        return plugged && level >= maxLimit;
+    }
+
+    public static boolean atMin(int level, boolean plugged, double minLimit) {
+        return !plugged && level <= minLimit;
+    }
+
+    public static Decision decide(int level, boolean plugged, PreferenceManager.Settings settings) {
+        if (!settings.alarmActive) return Decision.OFF;
+        if (atMax(level, plugged, settings.maxLimit)) return Decision.PLAY_MAX;
+        if (atMin(level, plugged, settings.minLimit)) return Decision.PLAY_MIN;
+        return Decision.QUIET;
+    }
+}
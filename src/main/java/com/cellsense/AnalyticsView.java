@@ -1,7 +1,10 @@
 package com.cellsense;
 
 import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.scene.Scene;
 import javafx.scene.chart.AreaChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
@@ -9,6 +12,10 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
+import javafx.stage.Window;
+import javafx.util.StringConverter;
+
+import java.util.function.Consumer;
 
 public class AnalyticsView {
 
@@ -18,6 +25,9 @@ public class AnalyticsView {
     private static Label voltageLabel;
     private static Label healthLabel;
 
+    // Span of the live chart
+    private static final long WINDOW_SECONDS = 60 * 60;
+
     public static VBox create() {
         Label header = new Label("Analytics & Insights");
         header.setStyle("-fx-font-size: 28px; -fx-font-weight: 900; -fx-text-fill: white;");
@@ -76,12 +86,27 @@ public class AnalyticsView {
         return content;
     }
 
+    // Re-entering the view: the report is served from the cache unless it expired
+    public static void refresh() {
+        loadRealData();
+    }
+
+    // Warms the report cache before the view is first opened. Any thread.
+    public static void prefetch() {
+        BatteryReportManager.getBatteryDetailsAsync().join();
+    }
+
     private static void loadRealData() {
-        // 1. Get Live Voltage (Fast)
-        new Thread(() -> {
-            String voltage = BatteryReportManager.getLiveVoltage();
-            Platform.runLater(() -> voltageLabel.setText(voltage));
-        }).start();
+        // 1. Voltage from the sampler's last reading; probe only if nothing was sampled yet
+        BatterySnapshot latest = BatterySampler.getLatest();
+        if (latest != BatterySnapshot.EMPTY) {
+            voltageLabel.setText(latest.getVoltageText());
+        } else {
+            new Thread(() -> {
+                String voltage = BatteryReportManager.getLiveVoltage();
+                Platform.runLater(() -> voltageLabel.setText(voltage));
+            }).start();
+        }
 
         // 2. Get Heavy Report Data (Slow, Async)
         BatteryReportManager.getBatteryDetailsAsync().thenAccept(data -> {
@@ -140,25 +165,73 @@ public class AnalyticsView {
         Label title = new Label("Battery Level History (Last Hour)");
         title.setStyle("-fx-text-fill: #8b949e; -fx-font-weight: bold;");
 
-        NumberAxis xAxis = new NumberAxis(0, 60, 10);
+        // X values are epoch seconds; the axis slides so its upper bound is always "now"
+        double now = AppClock.millis() / 1000.0;
+        NumberAxis xAxis = new NumberAxis(now - WINDOW_SECONDS, now, 600);
+        xAxis.setAutoRanging(false);
         xAxis.setLabel("Minutes Ago");
+        xAxis.setTickLabelFormatter(new StringConverter<Number>() {
+            @Override
+            public String toString(Number object) {
+                return String.valueOf(Math.round((xAxis.getUpperBound() - object.doubleValue()) / 60));
+            }
+            @Override
+            public Number fromString(String string) { return 0; }
+        });
         NumberAxis yAxis = new NumberAxis(0, 100, 20);
 
         AreaChart<Number, Number> areaChart = new AreaChart<>(xAxis, yAxis);
         areaChart.setCreateSymbols(false);
         areaChart.setLegendVisible(false);
+        areaChart.setAnimated(false);
         areaChart.setStyle("-fx-background-color: transparent;");
 
         XYChart.Series<Number, Number> series = new XYChart.Series<>();
-        series.getData().add(new XYChart.Data<>(60, 85));
-        series.getData().add(new XYChart.Data<>(30, 65));
-        series.getData().add(new XYChart.Data<>(0, BatteryManager.getBatteryLevel()));
         areaChart.getData().add(series);
 
         VBox card = new VBox(15, title, areaChart);
         card.setPadding(new Insets(20));
         card.setStyle("-fx-background-color: #161b22; -fx-background-radius: 12; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.2), 10, 0, 0, 0);");
         card.setMinHeight(280);
+
+        // Only listen to the sampler while the card is in a showing window
+        Consumer<BatterySnapshot> onSample = snapshot -> Platform.runLater(() -> appendSample(series, xAxis, snapshot.timestamp, snapshot.level));
+        ObservableValue<Boolean> displayed = card.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false);
+        displayed.addListener((obs, was, isDisplayed) -> {
+            if (isDisplayed) {
+                // Catch up on what was sampled while hidden from the minute rollups (one point per
+                // minute instead of up to 1,800 samples), then follow live
+                series.getData().clear();
+                long since = AppClock.millis() - WINDOW_SECONDS * 1000;
+                SampleRing.Rollup minutes = BatterySampler.getRecent().getMinutes();
+                for (int i = 0; i < minutes.size(); i++) {
+                    if (minutes.startOf(i) >= since) appendSample(series, xAxis, minutes.startOf(i), (int) Math.round(minutes.meanOf(i)));
+                }
+                BatterySnapshot latest = BatterySampler.getLatest();
+                if (latest != BatterySnapshot.EMPTY) appendSample(series, xAxis, latest.timestamp, latest.level);
+                BatterySampler.addListener(onSample);
+            } else {
+                BatterySampler.removeListener(onSample);
+            }
+        });
         return card;
     }
-}
\ No newline at end of file
+
+    // Appends one point and drops those older than the window; the rest of the series is untouched
+    private static void appendSample(XYChart.Series<Number, Number> series, NumberAxis xAxis, long epochMillis, int level) {
+        ObservableList<XYChart.Data<Number, Number>> data = series.getData();
+        double now = epochMillis / 1000.0;
+        if (!data.isEmpty() && data.get(data.size() - 1).getXValue().doubleValue() >= now) return;
+
+        data.add(new XYChart.Data<>(now, level));
+        int expired = 0;
+        while (expired < data.size() && data.get(expired).getXValue().doubleValue() < now - WINDOW_SECONDS) expired++;
+        if (expired > 0) data.remove(0, expired);
+
+        xAxis.setLowerBound(now - WINDOW_SECONDS);
+        xAxis.setUpperBound(now);
+    }
+}
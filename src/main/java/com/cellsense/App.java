@@ -12,6 +12,9 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
@@ -20,6 +23,8 @@ import javafx.util.Duration;
 
 import java.awt.SystemTray;
 import java.awt.TrayIcon;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 public class App extends Application {
 
@@ -29,16 +34,22 @@ public class App extends Application {
     private Stage primaryStage;
     private Label timeRemainingLabel;
     private Label powerModeLabel;
-    private boolean maxAlarmTriggered = false;
-    private boolean minAlarmTriggered = false;
     private BorderPane mainLayout;
-    private VBox dashboardView;
-    private VBox analyticsView;
-    private VBox historyView;
+    private ViewRegistry views;
+    // Set by the tray init task, read on the FX thread
+    private volatile TrayIcon trayIcon;
+    private final AlarmController alarms = new AlarmController(AlarmController.SOUND_MANAGER);
+    // Completes on the first laid-out frame; work that would compete with it waits for this
+    private final CompletableFuture<Void> firstFrame = new CompletableFuture<>();
+
+    // Show a heads-up this many minutes before an alarm limit is expected to be reached
+    private static final double ALARM_LEAD_MINUTES = 5;
 
     @Override
     public void start(Stage stage) {
+        StartupProfiler.mark("fx-start");
         this.primaryStage = stage;
+        boolean minimized = getParameters().getRaw().contains("--minimized");
 
         try {
             Image icon = new Image(getClass().getResourceAsStream("/icon.png"));
@@ -46,95 +57,163 @@ public class App extends Application {
         } catch (Exception e) { }
 
         Application.setUserAgentStylesheet(new PrimerDark().getUserAgentStylesheet());
-        setupSystemTray();
+        Platform.setImplicitExit(false);
+        stage.setOnCloseRequest(event -> { event.consume(); stage.hide(); });
 
         mainLayout = new BorderPane();
         mainLayout.setStyle("-fx-background-color: #0d1117;");
 
-        dashboardView = createDashboard();
+        // Each view is built on first visit and kept; later visits only refresh its data
+        views = new ViewRegistry(mainLayout::setCenter, this::isVisible);
+        views.register("dashboard", this::createDashboard, null, null);
+        views.register("analytics", AnalyticsView::create, AnalyticsView::refresh, AnalyticsView::prefetch);
+        views.register("history", HistoryView::create, HistoryView::refresh, HistoryView::prefetch);
 
         BorderPane sidebar = createSidebar();
         mainLayout.setLeft(sidebar);
-        mainLayout.setCenter(dashboardView);
-
-        animateStartup();
-
-        // Run check loop indefinitely
-        Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(2), event -> checkBattery()));
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.play();
 
         Scene scene = new Scene(mainLayout, 1000, 700);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.D, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN),
+                () -> DiagnosticsView.toggle(stage));
         stage.setTitle("CellSense");
         stage.setScene(scene);
 
-        //Auto Startup at Device Boot
-        if (!StartupManager.isStartupEnabled()) {
-            StartupManager.toggleStartup(true);
-        }
+        // The dashboard is built when the window is first shown, so --minimized builds none of it
+        stage.showingProperty().addListener((obs, was, isShowing) -> onVisibilityChanged());
+        stage.iconifiedProperty().addListener((obs, was, isIconified) -> onVisibilityChanged());
+        PowerEventBus.subscribe(PowerEventBus.PowerEvent.class, Platform::runLater, this::onPowerEvent);
+
         // FEATURE: Support starting minimized (for Auto-Start later)
-        if (!getParameters().getRaw().contains("--minimized")) {
+        if (!minimized) {
             stage.show();
         }
+        StartupProfiler.mark("stage-shown");
+
+        // Everything else runs off the FX thread, in parallel where the dependencies allow.
+        // History subscribes to power events, so polling starts only once it is listening.
+        CompletableFuture<Void> history = StartupProfiler.task("history", HistoryManager::init);
+        CompletableFuture<Void> polling = StartupProfiler.task("polling", PollScheduler::start, history);
+        CompletableFuture<Void> sounds = StartupProfiler.task("sounds", SoundManager::preload);
+        CompletableFuture<Void> tray = StartupProfiler.task("tray", this::setupSystemTray);
+        CompletableFuture<Void> mbeans = StartupProfiler.task("mbeans", Metrics::registerMBeans);
+        // Off unless -Dcellsense.http.port is set; serves only what history and polling already hold
+        CompletableFuture<Void> api = LocalApiServer.isEnabled()
+                ? StartupProfiler.task("api", LocalApiServer::start, history)
+                : CompletableFuture.completedFuture(null);
+        //Auto Startup at Device Boot
+        CompletableFuture<Void> autostart = StartupProfiler.task("autostart", () -> {
+            if (!StartupManager.isStartupEnabled()) {
+                StartupManager.toggleStartup(true);
+            }
+        });
+
+        CompletableFuture.allOf(history, polling, sounds, tray, mbeans, api, autostart, minimized ? CompletableFuture.completedFuture(null) : firstFrame)
+                .thenRun(StartupProfiler::report);
     }
 
     // --- OPTIMIZED BACKGROUND RUNNING LOGIC ---
+    // Probes run on BatterySampler's threads; the snapshot reaches the UI as PowerEventBus events
     private void checkBattery() {
-        int level = BatteryManager.getBatteryLevel();
-        boolean isPlugged = BatteryManager.isPluggedIn();
+        BatterySampler.sampleAsync();
+    }
+
+    private boolean isVisible() {
+        return primaryStage.isShowing() && !primaryStage.isIconified();
+    }
+
+    // Hidden windows skip UI updates, so catch up with the latest reading when shown again
+    private void onVisibilityChanged() {
+        if (primaryStage.isShowing() && views.getIfBuilt("dashboard") == null) showDashboardFirstTime();
+        PollScheduler.setShowing(isVisible());
+        BatterySnapshot latest = BatterySampler.getLatest();
+        if (isVisible() && latest != BatterySnapshot.EMPTY) applySnapshot(latest);
+        if (isVisible()) views.touch();
+    }
 
-        // 1. ALARM LOGIC (Always Runs - Very Light)
-        checkAlarms(level, isPlugged);
+    private void showDashboardFirstTime() {
+        views.show("dashboard");
+        animateStartup();
+
+        Scene scene = primaryStage.getScene();
+        Runnable[] onPulse = new Runnable[1];
+        onPulse[0] = () -> {
+            scene.removePostLayoutPulseListener(onPulse[0]);
+            StartupProfiler.firstFrame();
+            firstFrame.complete(null);
+        };
+        scene.addPostLayoutPulseListener(onPulse[0]);
+    }
+
+    // Runs on the FX thread. Only edges arrive here, a steady battery causes no work at all.
+    private void onPowerEvent(PowerEventBus.PowerEvent event) {
+        long start = System.nanoTime();
+        if (event instanceof PowerEventBus.ThresholdCrossed) checkAlarms(event.snapshot);
+        else if (!(event instanceof PowerEventBus.FullyCharged)) applySnapshot(event.snapshot);
+        Metrics.FX_UPDATE.recordSince(start);
+    }
+
+    private void applySnapshot(BatterySnapshot snapshot) {
+        RuntimeEstimator.Estimate estimate = BatterySampler.getEstimator().estimate();
+
+        // 1. TRAY (Always Runs - Very Light)
+        updateTrayTooltip(snapshot, estimate);
 
         // 2. UI LOGIC (Only Runs if Window is Visible - Saves CPU)
         if (primaryStage.isShowing()) {
-            updateUI(level, isPlugged);
+            updateUI(snapshot, estimate);
+            alarmStatusLabel.setText(alarmStatus(snapshot));
         }
     }
 
-    private void updateUI(int level, boolean isPlugged) {
+    private void updateUI(BatterySnapshot snapshot, RuntimeEstimator.Estimate estimate) {
+        int level = snapshot.level;
+        boolean isPlugged = snapshot.plugged;
         if (batteryLiquidRef != null) batteryLiquidRef.setProgress(level, isPlugged);
 
         if (isPlugged) {
             powerModeLabel.setText("AC Power");
             powerModeLabel.setStyle("-fx-text-fill: #2ea043; -fx-font-size: 24px; -fx-font-weight: bold;");
-            timeRemainingLabel.setText("Charging...");
+            timeRemainingLabel.setText(level >= 100 ? "Fully Charged"
+                    : estimate.isKnown() ? "~" + RuntimeEstimator.format(estimate.minutes) + " to full" : "Charging...");
         } else {
             powerModeLabel.setText("Battery");
             powerModeLabel.setStyle("-fx-text-fill: #f85149; -fx-font-size: 24px; -fx-font-weight: bold;");
-            timeRemainingLabel.setText("~" + (level * 2) + " mins");
+            timeRemainingLabel.setText(estimate.isKnown() ? "~" + RuntimeEstimator.format(estimate.minutes) : "Calculating...");
         }
     }
 
-    private void checkAlarms(int level, boolean isPlugged) {
-        if (!PreferenceManager.isAlarmActive()) {
-            // If UI is showing, clear the status label
-            if(primaryStage.isShowing()) alarmStatusLabel.setText("");
-            SoundManager.stopAlarm();
-            return;
-        }
+    // Called on threshold edges (and when alarms are switched on), so a non-looping alarm sounds once per crossing
+    private void checkAlarms(BatterySnapshot snapshot) {
+        if (primaryStage.isShowing()) alarmStatusLabel.setText(alarmStatus(snapshot));
+        alarms.check(snapshot);
+    }
 
-        double maxLimit = PreferenceManager.getMaxLimit();
-        double minLimit = PreferenceManager.getMinLimit();
+    private String alarmStatus(BatterySnapshot snapshot) {
+        PreferenceManager.Settings settings = PreferenceManager.getSettings();
+        return switch (AlarmPolicy.decide(snapshot.level, snapshot.plugged, settings)) {
+            case OFF -> "";
+            case PLAY_MAX -> "⚠ UNPLUG CHARGER NOW";
+            case PLAY_MIN -> "⚠ LOW BATTERY - PLUG IN";
+            case QUIET -> leadWarning(snapshot.plugged, settings.maxLimit, settings.minLimit);
+        };
+    }
 
-        if (isPlugged && level >= maxLimit) {
-            if(primaryStage.isShowing()) alarmStatusLabel.setText("⚠ UNPLUG CHARGER NOW");
-            if (!maxAlarmTriggered) {
-                SoundManager.playAlarm(PreferenceManager.getMaxSound(), PreferenceManager.isMaxLoop());
-                if (!PreferenceManager.isMaxLoop()) maxAlarmTriggered = true;
-            }
-        } else if (!isPlugged && level <= minLimit) {
-            if(primaryStage.isShowing()) alarmStatusLabel.setText("⚠ LOW BATTERY - PLUG IN");
-            if (!minAlarmTriggered) {
-                SoundManager.playAlarm(PreferenceManager.getMinSound(), PreferenceManager.isMinLoop());
-                if (!PreferenceManager.isMinLoop()) minAlarmTriggered = true;
-            }
-        } else {
-            if(primaryStage.isShowing()) alarmStatusLabel.setText("");
-            SoundManager.stopAlarm();
-            maxAlarmTriggered = false;
-            minAlarmTriggered = false;
-        }
+    // Heads-up text when a limit is expected within ALARM_LEAD_MINUTES (using the optimistic bound)
+    private String leadWarning(boolean isPlugged, double maxLimit, double minLimit) {
+        RuntimeEstimator.Estimate toLimit = BatterySampler.getEstimator().estimateTo(isPlugged ? maxLimit : minLimit);
+        if (!toLimit.isKnown() || toLimit.low > ALARM_LEAD_MINUTES) return "";
+        String eta = RuntimeEstimator.format(Math.max(1, toLimit.minutes));
+        return isPlugged ? "Charge limit in ~" + eta : "Low battery in ~" + eta;
+    }
+
+    private void updateTrayTooltip(BatterySnapshot snapshot, RuntimeEstimator.Estimate estimate) {
+        if (trayIcon == null) return;
+        String text = "CellSense - " + snapshot.level + "%";
+        if (estimate.isKnown()) text += estimate.charging
+                ? " (" + RuntimeEstimator.format(estimate.minutes) + " to full)"
+                : " (" + RuntimeEstimator.format(estimate.minutes) + " left)";
+        String tooltip = text;
+        java.awt.EventQueue.invokeLater(() -> trayIcon.setToolTip(tooltip));
     }
 
     // --- LAYOUT CODE ---
@@ -157,19 +236,17 @@ public class App extends Application {
 
         dashBtn.setOnAction(e -> {
             updateNavStyles(dashBtn, analyticsBtn, historyBtn);
-            mainLayout.setCenter(dashboardView);
+            views.show("dashboard");
         });
 
         analyticsBtn.setOnAction(e -> {
             updateNavStyles(analyticsBtn, dashBtn, historyBtn);
-            if (analyticsView == null) analyticsView = AnalyticsView.create();
-            mainLayout.setCenter(analyticsView);
+            views.show("analytics");
         });
 
         historyBtn.setOnAction(e -> {
             updateNavStyles(historyBtn, dashBtn, analyticsBtn);
-            if (historyView == null) historyView = HistoryView.create();
-            mainLayout.setCenter(historyView);
+            views.show("history");
         });
 
         VBox topSection = new VBox(20, logo, new Separator(), dashBtn, analyticsBtn, historyBtn);
@@ -253,7 +330,9 @@ public class App extends Application {
         alarmSwitch.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: white;");
         alarmSwitch.selectedProperty().addListener((obs, old, val) -> {
             PreferenceManager.setAlarmActive(val);
-            if (!val) SoundManager.stopAlarm();
+            BatterySnapshot latest = BatterySampler.getLatest();
+            if (latest != BatterySnapshot.EMPTY) checkAlarms(latest);
+            else if (!val) alarms.stop();
         });
 
         Label maxTitle = new Label("Stop Charging at");
@@ -342,7 +421,8 @@ public class App extends Application {
         VBox contentBox = new VBox(8);
         contentBox.setStyle("-fx-padding: 5 0 0 0;");
 
-        SmartTipsManager.generateTipsAsync().thenAccept(tips -> {
+        // The report behind the tips is the heaviest startup work, let the window paint first
+        firstFrame.thenCompose(ignored -> SmartTipsManager.generateTipsAsync()).thenAccept(tips -> {
             Platform.runLater(() -> {
                 contentBox.getChildren().clear();
                 for (SmartTipsManager.Tip tip : tips) {
@@ -385,23 +465,26 @@ public class App extends Application {
         return btn;
     }
 
+    // Runs as a startup task off the FX thread; the tray is AWT, not JavaFX
     private void setupSystemTray() {
-        Platform.setImplicitExit(false);
-        primaryStage.setOnCloseRequest(event -> { event.consume(); primaryStage.hide(); });
         if (SystemTray.isSupported()) {
             try {
                 SystemTray tray = SystemTray.getSystemTray();
                 java.awt.Image image = java.awt.Toolkit.getDefaultToolkit().createImage(getClass().getResource("/icon.png"));
-                TrayIcon trayIcon = new TrayIcon(image, "CellSense");
-                trayIcon.setImageAutoSize(true);
-                trayIcon.addActionListener(e -> Platform.runLater(() -> primaryStage.show()));
+                TrayIcon icon = new TrayIcon(image, "CellSense");
+                icon.setImageAutoSize(true);
+                icon.addActionListener(e -> Platform.runLater(() -> primaryStage.show()));
                 java.awt.PopupMenu popup = new java.awt.PopupMenu();
                 java.awt.MenuItem showItem = new java.awt.MenuItem("Show Dashboard");
                 showItem.addActionListener(e -> Platform.runLater(() -> primaryStage.show()));
                 java.awt.MenuItem exitItem = new java.awt.MenuItem("Exit Completely");
-                exitItem.addActionListener(e -> { tray.remove(trayIcon); Platform.exit(); System.exit(0); });
+                exitItem.addActionListener(e -> { tray.remove(icon); Platform.exit(); System.exit(0); });
                 popup.add(showItem); popup.add(exitItem);
-                trayIcon.setPopupMenu(popup); tray.add(trayIcon);
+                icon.setPopupMenu(popup); tray.add(icon);
+                // Published only once complete; events that arrived meanwhile are caught up here
+                trayIcon = icon;
+                BatterySnapshot latest = BatterySampler.getLatest();
+                if (latest != BatterySnapshot.EMPTY) Platform.runLater(() -> applySnapshot(latest));
             } catch (Exception e) {}
         }
     }
@@ -412,6 +495,8 @@ public class App extends Application {
     }
 
     public static void main(String[] args) {
-        launch();
+        // Before launch, so the recording covers startup too
+        FlightEvents.startFromArgs(Arrays.asList(args));
+        launch(args);
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.cellsense;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// The one place the app asks for the time. Normally the wall clock; with the simulated battery
+// (-Dcellsense.battery.provider=sim) time can run faster, -Dcellsense.sim.speed=<1..1000>, so days
+// of alarms, history and scheduling play out in minutes. Timestamps, "today" and poll delays all
+// go through here, and so does the report cache's TTL; only waits on the real OS (probe deadlines,
+// process timeouts) stay on real time.
+public class AppClock {
+
+    public static final double MAX_SPEED = 1000;
+
+    private static final boolean simulated = "sim".equals(System.getProperty("cellsense.battery.provider"));
+    private static final double speed = initSpeed();
+    // Simulated time starts at -Dcellsense.sim.start=<epoch ms>, or now
+    private static final long simOrigin = Long.getLong("cellsense.sim.start", System.currentTimeMillis());
+    private static final long realOriginNanos = System.nanoTime();
+
+    private static double initSpeed() {
+        if (!simulated) return 1;
+        double requested = Double.parseDouble(System.getProperty("cellsense.sim.speed", "1"));
+        return Math.max(1, Math.min(MAX_SPEED, requested));
+    }
+
+    // True when app time is not the wall clock
+    public static boolean isSimulated() {
+        return simulated;
+    }
+
+    public static double getSpeed() {
+        return speed;
+    }
+
+    // Epoch milliseconds, simulated or real
+    public static long millis() {
+        if (!simulated) return System.currentTimeMillis();
+        return simOrigin + (long) ((System.nanoTime() - realOriginNanos) * speed / 1_000_000);
+    }
+
+    public static LocalDate today() {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(millis()), ZoneId.systemDefault());
+    }
+
+    // How long to really wait for a span of app time to pass
+    public static long toRealMillis(long appMillis) {
+        if (speed == 1) return appMillis;
+        return Math.max(1, Math.round(appMillis / speed));
+    }
+}
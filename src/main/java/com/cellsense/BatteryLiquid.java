@@ -1,9 +1,12 @@
 package com.cellsense;
 
-import javafx.animation.Animation;
-import javafx.animation.Interpolator;
+import javafx.animation.AnimationTimer;
 import javafx.animation.TranslateTransition;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.value.ObservableValue;
 import javafx.geometry.Pos;
+import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.layout.Pane;
@@ -13,19 +16,60 @@ import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.SVGPath;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.Stage;
 import javafx.util.Duration;
 
-public class BatteryLiquid extends StackPane {
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// The waves only animate while the gauge is actually on screen (shown, not minimized, and the
+// dashboard is the current view). Unchanged levels are ignored and paints are built once.
+// Normally the waves follow the FX pulse. With a frame cap on battery they are driven by a timer
+// thread instead, and no animation is registered with the pulse, so it can idle between frames.
+public final class BatteryLiquid extends StackPane {
 
     private static final double WIDTH = 200;
     private static final double HEIGHT = 300;
 
+    // Paints per state, so an update never parses a colour string
+    private static final Color BLUE = Color.web("#2f81f7");
+    private static final Color BLUE_BACK = Color.web("#2f81f7", 0.3);
+    private static final Color GREEN = Color.web("#2ea043");
+    private static final Color GREEN_BACK = Color.web("#2ea043", 0.3);
+    private static final Color RED = Color.web("#f85149");
+    private static final Color RED_BACK = Color.web("#f85149", 0.3);
+
+    // Wave sweeps: one leg of the back-and-forth slosh, in nanoseconds
+    private static final long BACK_PERIOD_NS = 3_000_000_000L;
+    private static final long FRONT_PERIOD_NS = 2_000_000_000L;
+
+    // Optional frame cap for the waves while on battery, -Dcellsense.battery.fps=<n> (0 = follow the pulse)
+    private static final int BATTERY_FPS = Integer.getInteger("cellsense.battery.fps", 0);
+
+    // Ticks capped frames for every gauge
+    private static final ScheduledExecutorService frameClock = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cellsense-gauge");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final SVGPath waveBack;
     private final SVGPath waveFront;
     private final Label percentageLabel;
     private final Label statusLabel;
     private final Pane liquidPane; // Holds the waves
 
+    private final TranslateTransition levelBack;
+    private final TranslateTransition levelFront;
+    private final AnimationTimer waves;
+    private ScheduledFuture<?> cappedFrames;
+    private volatile boolean framePending; // A capped frame is queued on the FX thread
+    private int lastPercentage = -1;
+    private boolean lastPlugged;
+    private boolean animating;
+
     // The total height of the liquid area inside the battery
     private final double LIQUID_MAX_HEIGHT = HEIGHT - 20;
 
@@ -82,8 +126,24 @@ public class BatteryLiquid extends StackPane {
 
         // 5. Animations
         // Animate waves horizontally to look like flowing liquid
-        setupWaveAnimation(waveBack, 3000, 50); // Slower, offset
-        setupWaveAnimation(waveFront, 2000, 0); // Faster
+        waves = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                renderWaves(now);
+            }
+        };
+        levelBack = new TranslateTransition(Duration.millis(800), waveBack);
+        levelFront = new TranslateTransition(Duration.millis(800), waveFront);
+
+        // Run the waves only while this node is in a window that is showing and not minimized
+        ObservableValue<Boolean> onScreen = sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(window -> Bindings.createBooleanBinding(
+                        () -> window.isShowing() && !(window instanceof Stage stage && stage.isIconified()),
+                        window.showingProperty(),
+                        window instanceof Stage stage ? stage.iconifiedProperty() : window.showingProperty()))
+                .orElse(false);
+        onScreen.addListener((obs, was, isOnScreen) -> setAnimating(isOnScreen));
 
         // Combine everything
         this.getChildren().addAll(cap, shell, liquidPane, percentageLabel, statusLabel);
@@ -93,38 +153,81 @@ public class BatteryLiquid extends StackPane {
         setLiquidLevel(0);
     }
 
-    private void setupWaveAnimation(SVGPath wave, double durationMs, double delay) {
-        TranslateTransition transition = new TranslateTransition(Duration.millis(durationMs), wave);
-        transition.setFromX(-100); // Start slightly left
-        transition.setToX(0);      // Move right
-        transition.setCycleCount(Animation.INDEFINITE);
-        transition.setAutoReverse(true); // Move back and forth for a "sloshing" effect
-        transition.setInterpolator(Interpolator.EASE_BOTH);
-        transition.play();
+    // Pauses or resumes the waves; called automatically as the gauge leaves or enters the screen
+    public void setAnimating(boolean animate) {
+        if (animate == animating) return;
+        animating = animate;
+        updateDriver();
+    }
+
+    // Picks what drives the waves: nothing while off screen, the capped timer on battery if a cap
+    // is set, the pulse otherwise. FX thread.
+    private void updateDriver() {
+        boolean capped = animating && BATTERY_FPS > 0 && !lastPlugged;
+        if (animating && !capped) waves.start(); else waves.stop();
+
+        if (capped && cappedFrames == null) {
+            cappedFrames = frameClock.scheduleAtFixedRate(this::requestFrame, 0, 1_000_000_000L / BATTERY_FPS, TimeUnit.NANOSECONDS);
+        } else if (!capped && cappedFrames != null) {
+            cappedFrames.cancel(false);
+            cappedFrames = null;
+        }
+    }
+
+    // Frame clock thread. At most one frame waits for a busy FX thread; the rest are dropped.
+    private void requestFrame() {
+        if (framePending) return;
+        framePending = true;
+        Platform.runLater(() -> {
+            framePending = false;
+            if (cappedFrames != null) renderWaves(System.nanoTime());
+        });
+    }
+
+    // Slides each wave from -100 to 0 and back, eased at both ends like the old EASE_BOTH slosh
+    private void renderWaves(long now) {
+        waveBack.setTranslateX(slosh(now, BACK_PERIOD_NS));
+        waveFront.setTranslateX(slosh(now, FRONT_PERIOD_NS));
+        Metrics.GAUGE_FRAMES_RENDERED.increment();
+    }
+
+    private static double slosh(long now, long periodNanos) {
+        double phase = (now % (2 * periodNanos)) / (double) periodNanos; // 0..2, one round trip
+        return -100 + 100 * (0.5 - 0.5 * Math.cos(Math.PI * phase));
     }
 
     public void setProgress(int percentage, boolean isPlugged) {
+        // The same reading again changes nothing on screen
+        if (percentage == lastPercentage && isPlugged == lastPlugged) {
+            Metrics.GAUGE_UPDATES_SKIPPED.increment();
+            return;
+        }
+        boolean levelChanged = percentage != lastPercentage;
+        boolean pluggedChanged = isPlugged != lastPlugged;
+        lastPercentage = percentage;
+        lastPlugged = isPlugged;
+        Metrics.GAUGE_UPDATES_APPLIED.increment();
+        if (pluggedChanged) updateDriver();
+
         percentageLabel.setText(percentage + "%");
 
-        // Calculate color based on state
-        String colorHex = "#2f81f7"; // Default Blue
+        // Pick the paints based on state
         if (isPlugged) {
-            colorHex = "#2ea043"; // Green
             statusLabel.setText("⚡ Charging");
+            waveFront.setFill(GREEN);
+            waveBack.setFill(GREEN_BACK);
         } else if (percentage <= 20) {
-            colorHex = "#f85149"; // Red
             statusLabel.setText("On Battery");
+            waveFront.setFill(RED);
+            waveBack.setFill(RED_BACK);
         } else {
-            colorHex = "#2f81f7"; // Blue
             statusLabel.setText("On Battery");
+            waveFront.setFill(BLUE);
+            waveBack.setFill(BLUE_BACK);
         }
 
-        // Update Wave Colors
-        waveFront.setFill(Color.web(colorHex));
-        waveBack.setFill(Color.web(colorHex, 0.3)); // 30% opacity
-
         // Update Level (Animation)
-        setLiquidLevel(percentage);
+        if (levelChanged) setLiquidLevel(percentage);
     }
 
     private void setLiquidLevel(int percentage) {
@@ -135,12 +238,13 @@ public class BatteryLiquid extends StackPane {
 
         // We simply move the waves UP/DOWN inside the pane
         // The path itself is drawn at Y=0, so we translate it down to the "empty" space
-        TranslateTransition tBack = new TranslateTransition(Duration.millis(800), waveBack);
-        tBack.setToY(level - 10); // Offset slightly
-        tBack.play();
-
-        TranslateTransition tFront = new TranslateTransition(Duration.millis(800), waveFront);
-        tFront.setToY(level);
-        tFront.play();
+        // The two transitions are reused; restarting picks up from wherever the waves are now
+        levelBack.stop();
+        levelBack.setToY(level - 10); // Offset slightly
+        levelBack.play();
+
+        levelFront.stop();
+        levelFront.setToY(level);
+        levelFront.play();
     }
 }
\ No newline at end of file
@@ -1,46 +1,99 @@
 package com.cellsense;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 
 public class BatteryManager {
 
+    // Chosen once at startup. Override with -Dcellsense.battery.provider=wmi|sysfs|sim
+    private static final BatteryProvider provider = selectProvider();
+
+    public static BatteryProvider getProvider() {
+        return provider;
+    }
+
     // Returns the battery percentage (0-100)
     public static int getBatteryLevel() {
+        FlightEvents.Probe event = begin();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
         try {
-            // Windows command to get battery %
-            Process process = Runtime.getRuntime().exec("wmic path Win32_Battery get EstimatedChargeRemaining");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().matches("\\d+")) {
-                    return Integer.parseInt(line.trim());
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            return provider.getBatteryLevel();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            Metrics.PROBE_LEVEL.recordSince(start);
+            commit(event, "level", failure);
         }
-        return 0; // Default if error
     }
 
     // Returns true if plugged in, false if on battery
     public static boolean isPluggedIn() {
+        FlightEvents.Probe event = begin();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
         try {
-            // Windows command to get power status (2 = AC Connected)
-            Process process = Runtime.getRuntime().exec("wmic path Win32_Battery get BatteryStatus");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().matches("\\d+")) {
-                    int status = Integer.parseInt(line.trim());
-                    return status == 2;
-                }
+            return provider.isPluggedIn();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            Metrics.PROBE_PLUGGED.recordSince(start);
+            commit(event, "plugged", failure);
+        }
+    }
+
+    // Returns the battery voltage in Volts, NaN if the battery does not report it
+    public static double getVoltage() {
+        FlightEvents.Probe event = begin();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return provider.getVoltage();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            Metrics.PROBE_VOLTAGE.recordSince(start);
+            commit(event, "voltage", failure);
+        }
+    }
+
+    private static FlightEvents.Probe begin() {
+        FlightEvents.Probe event = new FlightEvents.Probe();
+        event.begin();
+        return event;
+    }
+
+    // failure is null when the provider answered
+    private static void commit(FlightEvents.Probe event, String probe, RuntimeException failure) {
+        // A probe interrupted by the sampler's deadline was already counted there as a timeout
+        if (failure != null && !Thread.currentThread().isInterrupted()) Metrics.PROBE_FAILURES.increment();
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.probe = probe;
+        event.provider = provider.getName();
+        event.failed = failure != null;
+        event.error = failure == null ? null : String.valueOf(failure.getCause() != null ? failure.getCause() : failure);
+        event.commit();
+    }
+
+    private static BatteryProvider selectProvider() {
+        String requested = System.getProperty("cellsense.battery.provider", "auto");
+        if (requested.equals("sim")) return SimulatedBatteryProvider.fromProperties();
+        SysfsBatteryProvider sysfs = null;
+        if (!requested.equals("wmi")) {
+            try {
+                sysfs = SysfsBatteryProvider.detect(SysfsBatteryProvider.DEFAULT_ROOT);
+            } catch (UncheckedIOException e) {
+                System.err.println("Cannot list " + SysfsBatteryProvider.DEFAULT_ROOT + ": " + e.getCause());
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return false;
+
+        if (requested.equals("sysfs") && sysfs == null) {
+            System.err.println("No battery found under " + SysfsBatteryProvider.DEFAULT_ROOT + ", falling back to WMI");
+        }
+        if (sysfs != null) return sysfs;
+        return new WmiBatteryProvider();
     }
-}
\ No newline at end of file
+}
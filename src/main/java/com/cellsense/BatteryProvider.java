@@ -0,0 +1,24 @@
+package com.cellsense;
+
+// Backend that knows how to read the battery on one platform. BatteryManager picks one at startup.
+// A reading that fails throws UncheckedIOException rather than returning a plausible value,
+// so the sampler can keep the previous reading and the failure is counted.
+public interface BatteryProvider {
+
+    String getName();
+
+    // Battery percentage (0-100)
+    int getBatteryLevel();
+
+    // True if on AC power
+    boolean isPluggedIn();
+
+    // Volts, NaN if the battery does not report it
+    double getVoltage();
+
+    // Remaining energy in Wh, NaN if the backend cannot report it
+    default double getEnergyNow() { return Double.NaN; }
+
+    // Current charge/discharge power in W, NaN if the backend cannot report it
+    default double getPowerNow() { return Double.NaN; }
+}
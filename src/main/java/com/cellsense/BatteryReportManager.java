@@ -4,14 +4,16 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinTask;
 
 public class BatteryReportManager {
 
@@ -70,119 +72,102 @@ public class BatteryReportManager {
         public ObservableList<CapacityRecord> capacityHistory = FXCollections.observableArrayList();
     }
 
-    // --- MAIN METHODS ---
+    // Everything one powercfg run produces; summary and tables come from the same parse
+    public static class Report {
+        public final Map<String, String> summary;
+        public final ReportData data;
 
-    public static CompletableFuture<Map<String, String>> getBatteryDetailsAsync() {
-        return CompletableFuture.supplyAsync(() -> {
-            Map<String, String> data = new HashMap<>();
-            File reportFile = null;
-            try {
-                reportFile = generateHtmlReport();
-                String htmlContent = readFileSafe(reportFile);
-
-                String dCap = extractSimpleValue(htmlContent, "DESIGN CAPACITY");
-                String fCap = extractSimpleValue(htmlContent, "FULL CHARGE CAPACITY");
-                String cycles = extractSimpleValue(htmlContent, "CYCLE COUNT");
-
-                data.put("DesignCapacity", cleanNumberString(dCap));
-                data.put("FullChargeCapacity", cleanNumberString(fCap));
-                data.put("CycleCount", cleanNumberString(cycles));
-
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                if(reportFile != null && reportFile.exists()) reportFile.delete();
-            }
-            return data;
-        });
+        public Report(Map<String, String> summary, ReportData data) {
+            this.summary = Collections.unmodifiableMap(summary);
+            this.data = data;
+        }
     }
 
-    public static CompletableFuture<ReportData> getFullReportAsync() {
-        return CompletableFuture.supplyAsync(() -> {
-            ReportData data = new ReportData();
-            File reportFile = null;
-            try {
-                reportFile = generateHtmlReport();
-                String htmlContent = readFileSafe(reportFile);
-
-                // 1. Parse Graph Data
-                parseDrainGraph(htmlContent, data.drainGraph);
-
-                // 2. Parse Tables
-                String recentUsageSection = getSection(htmlContent, "Recent usage", "Battery usage");
-                parseRecentUsage(recentUsageSection, data.recentUsage);
-
-                String capacitySection = getSection(htmlContent, "Battery capacity history", "Battery life estimates");
-                parseCapacityHistory(capacitySection, data.capacityHistory);
-
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                if(reportFile != null && reportFile.exists()) reportFile.delete();
-            }
-            return data;
-        });
-    }
+    // --- CACHE ---
 
-    // --- PARSING LOGIC ---
+    // How long a parsed report is served before powercfg runs again. Override with -Dcellsense.report.ttl=<seconds>
+    private static final long REPORT_TTL_MS = Long.getLong("cellsense.report.ttl", 600) * 1000;
+    private static final ReportCache cache = new ReportCache(BatteryReportManager::loadReport, REPORT_TTL_MS);
 
-    //Extracts the 'drainGraphData' JSON array from the script tag
-    private static void parseDrainGraph(String html, ObservableList<GraphPoint> list) {
-        if (html == null) return;
+    // Rows from every report seen so far; each new report only adds what is newer
+    private static final ReportStore store = new ReportStore(Path.of(System.getProperty("user.home"), "cellsense_reports"));
 
-        // Find the variable definition
-        // drainGraphData = [ ... ];
-        int startVar = html.indexOf("drainGraphData");
-        if (startVar == -1) return;
+    // A cached report describes the old power source, drop it on plug/unplug
+    static {
+        PowerEventBus.subscribe(PowerEventBus.PluggedIn.class, e -> invalidateCache());
+        PowerEventBus.subscribe(PowerEventBus.Unplugged.class, e -> invalidateCache());
+    }
 
-        int startArr = html.indexOf("[", startVar);
-        int endArr = html.indexOf("];", startArr);
+    public static ReportCache getCache() {
+        return cache;
+    }
 
-        if (startArr != -1 && endArr != -1) {
-            String jsonBlock = html.substring(startArr, endArr + 1);
+    // Called on plug/unplug: capacity and usage figures change with the power source
+    public static void invalidateCache() {
+        cache.invalidate();
+    }
 
-            // Regex to match objects like: { x0: "2025...", ... y0: 0.65... }
-            Pattern p = Pattern.compile("x0:\\s*\"(.*?)\".*?y0:\\s*([0-9\\.]+)", Pattern.DOTALL);
-            Matcher m = p.matcher(jsonBlock);
+    // --- MAIN METHODS ---
 
-            while (m.find()) {
-                try {
-                    String time = m.group(1);
-                    double percent = Double.parseDouble(m.group(2)) * 100.0; // Convert 0.65 -> 65.0
-                    list.add(new GraphPoint(time, percent));
-                } catch (Exception ignored) {}
-            }
-        }
+    // A failed load is not cached; callers get an empty summary (shown as N/A) and the next call retries
+    public static CompletableFuture<Map<String, String>> getBatteryDetailsAsync() {
+        return cache.get().thenApply(report -> report.summary).exceptionally(error -> Collections.emptyMap());
     }
 
-    private static void parseRecentUsage(String html, ObservableList<UsageRecord> list) {
-        if (html == null) return;
-        Pattern rowPattern = Pattern.compile(
-                "<span class=\"date\">([\\s\\S]*?)</span>\\s*<span class=\"time\">([\\s\\S]*?)</span>[\\s\\S]*?class=\"state\">\\s*([\\s\\S]*?)\\s*</td>[\\s\\S]*?class=\"acdc\">\\s*([\\s\\S]*?)\\s*</td>[\\s\\S]*?class=\"percent\">\\s*([\\s\\S]*?)\\s*</td>[\\s\\S]*?class=\"mw\">\\s*([\\s\\S]*?)\\s*</td>",
-                Pattern.CASE_INSENSITIVE
-        );
-        Matcher m = rowPattern.matcher(html);
-        String lastDate = "";
-
-        while (m.find()) {
-            String date = m.group(1).trim();
-            String time = m.group(2).trim();
-            if (date.isEmpty()) date = lastDate; else lastDate = date;
-
-            list.add(0, new UsageRecord(date + " " + time, m.group(3), m.group(4), m.group(5), m.group(6)));
-        }
+    // Falls back to the rows already stored when powercfg fails
+    public static CompletableFuture<ReportData> getFullReportAsync() {
+        return cache.get().thenApply(report -> report.data).exceptionally(error -> store.toReportData());
     }
 
-    private static void parseCapacityHistory(String html, ObservableList<CapacityRecord> list) {
-        if (html == null) return;
-        Pattern rowPattern = Pattern.compile(
-                "<td[^>]*class=\"dateTime\"[^>]*>([\\s\\S]*?)</td>\\s*<td[^>]*class=\"mw\"[^>]*>([\\s\\S]*?)</td>\\s*<td[^>]*class=\"mw\"[^>]*>([\\s\\S]*?)</td>",
-                Pattern.CASE_INSENSITIVE
-        );
-        Matcher m = rowPattern.matcher(html);
-        while (m.find()) {
-            list.add(0, new CapacityRecord(m.group(1), m.group(2), m.group(3)));
+    // What the local store already holds. No powercfg run, so it is ready almost immediately.
+    public static CompletableFuture<ReportData> getStoredReportAsync() {
+        return CompletableFuture.supplyAsync(store::toReportData);
+    }
+
+    // Throws if powercfg or the parse fails, so ReportCache never keeps a broken report as a good one
+    private static Report loadReport() {
+        Map<String, String> summary = new HashMap<>();
+        File reportFile = null;
+        try {
+            reportFile = generateHtmlReport();
+
+            FlightEvents.ReportParse stage = beginStage();
+            CharSequence html = BatteryReportParser.load(reportFile.toPath());
+            commitStage(stage, "load", html.length(), 0);
+
+            stage = beginStage();
+            ReportIndex index = ReportIndex.build(html);
+            commitStage(stage, "index", html.length(), 0);
+
+            stage = beginStage();
+            String dCap = extractSimpleValue(index, ReportIndex.DESIGN_CAPACITY);
+            String fCap = extractSimpleValue(index, ReportIndex.FULL_CHARGE_CAPACITY);
+            String cycles = extractSimpleValue(index, ReportIndex.CYCLE_COUNT);
+            if (dCap == null && fCap == null && cycles == null) {
+                throw new IOException("Battery report has no summary (" + html.length() + " chars)");
+            }
+
+            summary.put("DesignCapacity", cleanNumberString(dCap));
+            summary.put("FullChargeCapacity", cleanNumberString(fCap));
+            summary.put("CycleCount", cleanNumberString(cycles));
+            commitStage(stage, "summary", html.length(), 3);
+
+            // Only rows past the store's high-water marks are parsed, then appended
+            long parseStart = System.nanoTime();
+            BatteryReportParser.Rows rows = parseSections(index);
+            Metrics.REPORT_PARSE.recordSince(parseStart);
+
+            stage = beginStage();
+            store.ingest(rows);
+            commitStage(stage, "ingest", 0, rows.graph.size() + rows.usage.size() + rows.capacity.size());
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new CompletionException(e);
+        } finally {
+            if (reportFile != null) deleteReport(reportFile);
         }
+        return new Report(summary, store.toReportData());
     }
 
     // --- HELPERS ---
@@ -192,24 +177,45 @@ public class BatteryReportManager {
         return raw.replace("&nbsp;", " ").replaceAll("\\s+", " ").trim();
     }
 
-    private static String extractSimpleValue(String html, String label) {
-        try {
-            Pattern p = Pattern.compile(label + "[\\s\\S]*?</td>\\s*<td>\\s*([\\s\\S]*?)\\s*</td>", Pattern.CASE_INSENSITIVE);
-            Matcher m = p.matcher(html);
-            if (m.find()) return m.group(1).trim();
-        } catch (Exception e) {}
-        return "0";
+    private static String extractSimpleValue(ReportIndex index, String label) {
+        return index.getSummaryValue(label);
     }
 
-    private static String getSection(String html, String startHeader, String nextHeader) {
-        try {
-            int start = html.indexOf(startHeader);
-            if (start == -1) return null;
-            int end = html.indexOf(nextHeader, start);
-            if (end == -1) end = html.length();
-            return html.substring(start, end);
-        } catch (Exception e) {}
-        return null;
+    // The three sections are independent, so each is parsed on its own fork-join task.
+    // Full-report latency is then roughly that of the largest section.
+    private static BatteryReportParser.Rows parseSections(ReportIndex index) {
+        CharSequence html = index.html;
+        String drainMark = store.getDrainMark();
+        String usageMark = store.getUsageMark();
+        String capacityMark = store.getCapacityMark();
+        ForkJoinTask<BatteryReportParser.Rows> graph = ForkJoinTask.adapt(() -> {
+            FlightEvents.ReportParse stage = beginStage();
+            BatteryReportParser.Rows rows = new BatteryReportParser.Rows();
+            if (index.drainGraphStart >= 0) BatteryReportParser.parseDrainGraph(html, index.drainGraphStart, index.drainGraphEnd, drainMark, rows);
+            commitStage(stage, "drain", index.drainGraphStart >= 0 ? index.drainGraphEnd - index.drainGraphStart : 0, rows.graph.size());
+            return rows;
+        });
+        ForkJoinTask<BatteryReportParser.Rows> usage = ForkJoinTask.adapt(() -> {
+            FlightEvents.ReportParse stage = beginStage();
+            BatteryReportParser.Rows rows = new BatteryReportParser.Rows();
+            if (index.recentUsageStart >= 0) BatteryReportParser.parseRecentUsage(html, index.recentUsageStart, index.recentUsageEnd, usageMark, rows);
+            commitStage(stage, "usage", index.recentUsageStart >= 0 ? index.recentUsageEnd - index.recentUsageStart : 0, rows.usage.size());
+            return rows;
+        });
+        ForkJoinTask<BatteryReportParser.Rows> capacity = ForkJoinTask.adapt(() -> {
+            FlightEvents.ReportParse stage = beginStage();
+            BatteryReportParser.Rows rows = new BatteryReportParser.Rows();
+            if (index.capacityStart >= 0) BatteryReportParser.parseCapacityHistory(html, index.capacityStart, index.capacityEnd, capacityMark, rows);
+            commitStage(stage, "capacity", index.capacityStart >= 0 ? index.capacityEnd - index.capacityStart : 0, rows.capacity.size());
+            return rows;
+        });
+        ForkJoinTask.invokeAll(graph, usage, capacity);
+
+        BatteryReportParser.Rows merged = new BatteryReportParser.Rows();
+        merged.graph.addAll(graph.join().graph);
+        merged.usage.addAll(usage.join().usage);
+        merged.capacity.addAll(capacity.join().capacity);
+        return merged;
     }
 
     private static String cleanNumberString(String raw) {
@@ -222,37 +228,64 @@ public class BatteryReportManager {
         File reportFile = File.createTempFile("battery_report", ".html");
         ProcessBuilder pb = new ProcessBuilder("powercfg", "/batteryreport", "/output", reportFile.getAbsolutePath());
         pb.redirectErrorStream(true);
-        Process p = pb.start();
-        p.waitFor();
+        FlightEvents.Powercfg event = new FlightEvents.Powercfg();
+        event.begin();
+        long start = System.nanoTime();
+        Process p;
+        try {
+            p = pb.start();
+        } catch (IOException e) {
+            deleteReport(reportFile);
+            throw e;
+        }
+        Metrics.PROCESSES_SPAWNED.increment();
+        int exitCode = p.waitFor();
+        Metrics.POWERCFG.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.exitCode = exitCode;
+            event.reportBytes = reportFile.length();
+            event.commit();
+        }
+        if (exitCode != 0) {
+            deleteReport(reportFile);
+            throw new IOException("powercfg exited with code " + exitCode);
+        }
         return reportFile;
     }
 
-    private static String readFileSafe(File file) {
+    private static FlightEvents.ReportParse beginStage() {
+        FlightEvents.ReportParse event = new FlightEvents.ReportParse();
+        event.begin();
+        return event;
+    }
+
+    private static void commitStage(FlightEvents.ReportParse event, String stage, long inputChars, int rows) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.stage = stage;
+        event.inputChars = inputChars;
+        event.rows = rows;
+        event.commit();
+    }
+
+    // powercfg reports are several MB; a failed delete would leave one in %TEMP% per refresh
+    private static void deleteReport(File reportFile) {
         try {
-            String content = Files.readString(file.toPath());
-            if (content.contains("\u0000")) {
-                try (FileInputStream fis = new FileInputStream(file)) {
-                    byte[] data = new byte[(int) file.length()];
-                    fis.read(data);
-                    return new String(data, StandardCharsets.UTF_16);
-                }
-            }
-            return content;
-        } catch (Exception e) { return ""; }
+            Files.deleteIfExists(reportFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Could not delete " + reportFile + ": " + e);
+        }
     }
 
     public static String getLiveVoltage() {
+        double volts;
         try {
-            Process process = Runtime.getRuntime().exec("wmic path Win32_Battery get DesignVoltage");
-            java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().matches("\\d+")) {
-                    double mv = Double.parseDouble(line.trim());
-                    return String.format("%.2f V", mv / 1000.0);
-                }
-            }
-        } catch (Exception e) { }
-        return "N/A";
+            volts = BatteryManager.getVoltage();
+        } catch (UncheckedIOException e) {
+            return "N/A";
+        }
+        if (Double.isNaN(volts)) return "N/A";
+        return String.format("%.2f V", volts);
     }
-}
\ No newline at end of file
+}
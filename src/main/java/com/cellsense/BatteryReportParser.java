@@ -0,0 +1,295 @@
+package com.cellsense;
+
+import com.cellsense.BatteryReportManager.CapacityRecord;
+import com.cellsense.BatteryReportManager.GraphPoint;
+import com.cellsense.BatteryReportManager.UsageRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Linear-time tokenizer for the powercfg battery report.
+// The cursor only ever moves forward, so a section is parsed in one pass with no regex backtracking.
+// ReportIndex finds where each section lives; the section parsers below only read their own range.
+public class BatteryReportParser {
+
+    // Receives records in document order (oldest first)
+    public interface Handler {
+        void onGraphPoint(GraphPoint point);
+        void onUsage(UsageRecord record);
+        void onCapacity(CapacityRecord record);
+    }
+
+    // Handler that just keeps everything. One per thread when sections are parsed in parallel.
+    public static class Rows implements Handler {
+        public final List<GraphPoint> graph = new ArrayList<>();
+        public final List<UsageRecord> usage = new ArrayList<>();
+        public final List<CapacityRecord> capacity = new ArrayList<>();
+
+        @Override public void onGraphPoint(GraphPoint point) { graph.add(point); }
+        @Override public void onUsage(UsageRecord record) { usage.add(record); }
+        @Override public void onCapacity(CapacityRecord record) { capacity.add(record); }
+    }
+
+    // Section headers as they appear in the report's <h2> tags
+    static final String RECENT_USAGE = "Recent usage";
+    static final String BATTERY_USAGE = "Battery usage";
+    static final String CAPACITY_HISTORY = "Battery capacity history";
+    static final String LIFE_ESTIMATES = "Battery life estimates";
+    static final String DRAIN_GRAPH = "drainGraphData";
+
+    // --- LOADING ---
+
+    // Reads the file in one go and decodes it once, picking the charset from the BOM (powercfg may write UTF-16).
+    // Deliberately not memory-mapped: a live mapping keeps the file locked on Windows, so the
+    // temporary report could not be deleted afterwards.
+    public static CharBuffer load(Path file) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        Charset charset = detectCharset(bytes);
+        return charset.decode(bytes);
+    }
+
+    // Reads the BOM (if any) and leaves the buffer positioned after it
+    static Charset detectCharset(ByteBuffer bytes) {
+        int size = bytes.remaining();
+        int b0 = size > 0 ? bytes.get(0) & 0xFF : -1;
+        int b1 = size > 1 ? bytes.get(1) & 0xFF : -1;
+        int b2 = size > 2 ? bytes.get(2) & 0xFF : -1;
+
+        if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) { bytes.position(3); return StandardCharsets.UTF_8; }
+        if (b0 == 0xFF && b1 == 0xFE) { bytes.position(2); return StandardCharsets.UTF_16LE; }
+        if (b0 == 0xFE && b1 == 0xFF) { bytes.position(2); return StandardCharsets.UTF_16BE; }
+        // No BOM: a NUL in the first code unit still gives UTF-16 away
+        if (b1 == 0) return StandardCharsets.UTF_16LE;
+        if (b0 == 0) return StandardCharsets.UTF_16BE;
+        return StandardCharsets.UTF_8;
+    }
+
+    // --- PARSING ---
+
+    // Incremental parsing: every section parser takes an "after" key (null = everything).
+    // Rows whose timestamp sorts before it are already stored, so they are skipped before any
+    // record is built. A row equal to the key is still emitted because its values may have moved on.
+
+    // Reads { x0: "2025-11-03T19:18:24", ... y0: 0.65 } objects from the drainGraphData array
+    public static int parseDrainGraph(CharSequence html, int from, int to, String after, Handler handler) {
+        int start = indexOf(html, '[', from, to);
+        if (start < 0) return to;
+        int end = indexOf(html, "];", start, to);
+        if (end < 0) end = to;
+
+        int i = start;
+        while (true) {
+            int x = indexOf(html, "x0:", i, end);
+            if (x < 0) break;
+            int open = indexOf(html, '"', x + 3, end);
+            if (open < 0) break;
+            int close = indexOf(html, '"', open + 1, end);
+            if (close < 0) break;
+            int y = indexOf(html, "y0:", close, end);
+            if (y < 0) break;
+
+            int numStart = skipWhitespace(html, y + 3, end);
+            int numEnd = numStart;
+            while (numEnd < end && (Character.isDigit(html.charAt(numEnd)) || html.charAt(numEnd) == '.')) numEnd++;
+            i = numEnd;
+
+            if (after != null && compare(html, open + 1, close, after) < 0) continue;
+            try {
+                String time = html.subSequence(open + 1, close).toString();
+                double percent = Double.parseDouble(html.subSequence(numStart, numEnd).toString()) * 100.0; // Convert 0.65 -> 65.0
+                handler.onGraphPoint(new GraphPoint(time, percent));
+            } catch (NumberFormatException ignored) {}
+        }
+        return end;
+    }
+
+    // Rows of the "Recent usage" table. Stops at the "Battery usage" header and returns its offset.
+    public static int parseRecentUsage(CharSequence html, int from, int to, String after, Handler handler) {
+        String date = null, start = null, state = null, source = null, percent = null;
+        String lastDate = "";
+        boolean known = false;
+
+        int i = from;
+        while (i < to) {
+            int lt = indexOf(html, '<', i, to);
+            if (lt < 0) return to;
+            if (isText(html, i, lt, BATTERY_USAGE)) return i;
+
+            int gt = tagEnd(html, lt, to);
+            i = gt + 1;
+
+            boolean span = isTag(html, lt, "span");
+            if (!span && !isTag(html, lt, "td")) continue;
+
+            String field;
+            if (span && hasClass(html, lt, gt, "date")) field = "date";
+            else if (span && hasClass(html, lt, gt, "time")) field = "time";
+            else if (!span && hasClass(html, lt, gt, "state")) field = "state";
+            else if (!span && hasClass(html, lt, gt, "acdc")) field = "acdc";
+            else if (!span && hasClass(html, lt, gt, "percent")) field = "percent";
+            else if (!span && hasClass(html, lt, gt, "mw")) field = "mw";
+            else continue;
+
+            int close = indexOf(html, span ? "</span>" : "</td>", i, to);
+            if (close < 0) return to;
+            int cell = i;
+            i = close;
+            // Cells of a row that is already stored are stepped over without being copied
+            if (known && !field.equals("date")) continue;
+            String value = html.subSequence(cell, close).toString().trim();
+
+            switch (field) {
+                case "date" -> { date = value; start = state = source = percent = null; known = false; }
+                case "time" -> {
+                    if (date == null) break;
+                    if (date.isEmpty()) date = lastDate; else lastDate = date;
+                    start = date + " " + value;
+                    known = after != null && start.compareTo(after) < 0;
+                }
+                case "state" -> state = value;
+                case "acdc" -> source = value;
+                case "percent" -> percent = value;
+                default -> {
+                    if (start != null && state != null && source != null && percent != null) {
+                        handler.onUsage(new UsageRecord(start, state, source, percent, value));
+                    }
+                    date = start = state = source = percent = null;
+                }
+            }
+        }
+        return to;
+    }
+
+    // Rows of the "Battery capacity history" table. Stops at the "Battery life estimates" header.
+    public static int parseCapacityHistory(CharSequence html, int from, int to, String after, Handler handler) {
+        String period = null, full = null;
+        boolean known = false;
+
+        int i = from;
+        while (i < to) {
+            int lt = indexOf(html, '<', i, to);
+            if (lt < 0) return to;
+            if (isText(html, i, lt, LIFE_ESTIMATES)) return i;
+
+            int gt = tagEnd(html, lt, to);
+            i = gt + 1;
+            if (!isTag(html, lt, "td")) continue;
+
+            boolean dateCell = hasClass(html, lt, gt, "dateTime");
+            if (!dateCell && !hasClass(html, lt, gt, "mw")) { period = full = null; continue; }
+
+            int close = indexOf(html, "</td>", i, to);
+            if (close < 0) return to;
+            int cell = i;
+            i = close;
+
+            if (dateCell) {
+                full = null;
+                int trimmed = skipWhitespace(html, cell, close);
+                known = after != null && compare(html, trimmed, close, after) < 0;
+                period = known ? null : html.subSequence(cell, close).toString();
+            }
+            else if (period == null) continue;
+            else if (full == null) full = html.subSequence(cell, close).toString();
+            else {
+                handler.onCapacity(new CapacityRecord(period, full, html.subSequence(cell, close).toString()));
+                period = full = null;
+            }
+        }
+        return to;
+    }
+
+    // --- SCANNING HELPERS ---
+
+    static int indexOf(CharSequence s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    static int indexOf(CharSequence s, String needle, int from, int to) {
+        int last = to - needle.length();
+        char first = needle.charAt(0);
+        for (int i = from; i <= last; i++) {
+            if (s.charAt(i) == first && regionMatches(s, i, needle)) return i;
+        }
+        return -1;
+    }
+
+    // Lexicographic comparison of s[from, to) with other, like String.compareTo but without copying
+    static int compare(CharSequence s, int from, int to, String other) {
+        int n = Math.min(to - from, other.length());
+        for (int k = 0; k < n; k++) {
+            int diff = s.charAt(from + k) - other.charAt(k);
+            if (diff != 0) return diff;
+        }
+        return (to - from) - other.length();
+    }
+
+    static boolean regionMatches(CharSequence s, int at, String needle) {
+        if (at < 0 || at + needle.length() > s.length()) return false;
+        for (int k = 0; k < needle.length(); k++) {
+            if (s.charAt(at + k) != needle.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    // Offset of the '>' closing the tag (or comment) opened at lt
+    static int tagEnd(CharSequence s, int lt, int to) {
+        if (regionMatches(s, lt, "<!--")) {
+            int end = indexOf(s, "-->", lt + 4, to);
+            return end < 0 ? to - 1 : end + 2;
+        }
+        int gt = indexOf(s, '>', lt, to);
+        return gt < 0 ? to - 1 : gt;
+    }
+
+    // True if the tag at lt is <name ...> (case-insensitive, opening tags only)
+    static boolean isTag(CharSequence s, int lt, String name) {
+        int end = lt + 1 + name.length();
+        if (end >= s.length()) return false;
+        for (int k = 0; k < name.length(); k++) {
+            if (Character.toLowerCase(s.charAt(lt + 1 + k)) != name.charAt(k)) return false;
+        }
+        char next = s.charAt(end);
+        return next == '>' || Character.isWhitespace(next);
+    }
+
+    // True if the tag spanning [lt, gt] carries class="name" exactly
+    static boolean hasClass(CharSequence s, int lt, int gt, String name) {
+        int attr = indexOf(s, "class=\"", lt, gt);
+        if (attr < 0) return false;
+        int value = attr + 7;
+        return regionMatches(s, value, name) && s.charAt(value + name.length()) == '"';
+    }
+
+    // True if the text node [from, to) is exactly the given text once surrounding whitespace is dropped
+    static boolean isText(CharSequence s, int from, int to, String text) {
+        from = skipWhitespace(s, from, to);
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+        return to - from == text.length() && regionMatches(s, from, text);
+    }
+
+    static boolean isTextIgnoreCase(CharSequence s, int from, int to, String text) {
+        from = skipWhitespace(s, from, to);
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+        if (to - from != text.length()) return false;
+        for (int k = 0; k < text.length(); k++) {
+            if (Character.toUpperCase(s.charAt(from + k)) != Character.toUpperCase(text.charAt(k))) return false;
+        }
+        return true;
+    }
+
+    static int skipWhitespace(CharSequence s, int from, int to) {
+        while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+        return from;
+    }
+}
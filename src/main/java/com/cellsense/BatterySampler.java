@@ -0,0 +1,103 @@
+package com.cellsense;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+public class BatterySampler {
+
+    // Hard deadline for one probe round. Probes that miss it are cancelled and their last value is reused.
+    static final long PROBE_DEADLINE_MS = 1500;
+
+    // Probes mostly block on child processes, so a virtual thread per probe is cheap
+    private static final ExecutorService probeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static volatile BatterySnapshot latest = BatterySnapshot.EMPTY;
+    private static CompletableFuture<BatterySnapshot> inFlight;
+    private static final SampleRing recent = new SampleRing();
+    private static final RuntimeEstimator estimator = new RuntimeEstimator(recent);
+    private static final List<Consumer<BatterySnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    // Last published reading. Never blocks, safe from any thread.
+    public static BatterySnapshot getLatest() {
+        return latest;
+    }
+
+    public static SampleRing getRecent() {
+        return recent;
+    }
+
+    // Time to empty / full, fed with every snapshot
+    public static RuntimeEstimator getEstimator() {
+        return estimator;
+    }
+
+    // Listeners run on the sampler thread right after a snapshot is published.
+    // Anything that only cares about changes should subscribe to PowerEventBus instead.
+    public static void addListener(Consumer<BatterySnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Consumer<BatterySnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    // Starts a probe round off the calling thread. Overlapping requests share the round already running.
+    public static synchronized CompletableFuture<BatterySnapshot> sampleAsync() {
+        if (inFlight != null && !inFlight.isDone()) return inFlight;
+        inFlight = CompletableFuture.supplyAsync(BatterySampler::sample, probeExecutor);
+        return inFlight;
+    }
+
+    private static BatterySnapshot sample() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(PROBE_DEADLINE_MS);
+        BatterySnapshot previous = latest;
+
+        // Fan out: all probes run concurrently, the round costs as much as the slowest one
+        Future<Integer> level = probeExecutor.submit(BatteryManager::getBatteryLevel);
+        Future<Boolean> plugged = probeExecutor.submit(BatteryManager::isPluggedIn);
+        Future<Double> voltage = probeExecutor.submit(BatteryManager::getVoltage);
+
+        BatterySnapshot snapshot = new BatterySnapshot(
+                await(level, deadline, previous.level),
+                await(plugged, deadline, previous.plugged),
+                await(voltage, deadline, previous.voltage),
+                AppClock.millis(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        latest = snapshot;
+        recent.add(snapshot.timestamp, snapshot.level, snapshot.plugged);
+        estimator.update(snapshot.timestamp, snapshot.level, snapshot.plugged);
+        for (Consumer<BatterySnapshot> listener : listeners) {
+            listener.accept(snapshot);
+        }
+        PowerEventBus.publish(snapshot);
+        return snapshot;
+    }
+
+    private static <T> T await(Future<T> probe, long deadline, T fallback) {
+        try {
+            return probe.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            Metrics.PROBE_FAILURES.increment();
+            probe.cancel(true);
+        } catch (InterruptedException e) {
+            probe.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Already counted by BatteryManager, which saw the provider fail
+            System.err.println("Battery probe failed: " + e.getCause());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return fallback;
+    }
+}
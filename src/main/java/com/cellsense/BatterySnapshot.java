@@ -0,0 +1,26 @@
+package com.cellsense;
+
+// One immutable reading of the battery, published by BatterySampler
+public class BatterySnapshot {
+
+    public static final BatterySnapshot EMPTY = new BatterySnapshot(0, false, Double.NaN, 0, 0);
+
+    public final int level;            // 0 - 100
+    public final boolean plugged;      // true when on AC power
+    public final double voltage;       // Volts, NaN when unknown
+    public final long timestamp;       // Epoch millis when the probes finished
+    public final long probeLatencyMs;  // Wall time spent on the whole probe round
+
+    public BatterySnapshot(int level, boolean plugged, double voltage, long timestamp, long probeLatencyMs) {
+        this.level = level;
+        this.plugged = plugged;
+        this.voltage = voltage;
+        this.timestamp = timestamp;
+        this.probeLatencyMs = probeLatencyMs;
+    }
+
+    public String getVoltageText() {
+        if (Double.isNaN(voltage)) return "N/A";
+        return String.format("%.2f V", voltage);
+    }
+}
@@ -0,0 +1,137 @@
+package com.cellsense;
+
+import javafx.animation.PauseTransition;
+import javafx.beans.InvalidationListener;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Feeds a chart a Largest-Triangle-Three-Buckets reduction of a long series instead of every point.
+// The chart keeps about 2 points per horizontal pixel of whatever x range is visible,
+// and the reduction is redone when the chart is resized or its x axis is zoomed.
+// Any XYChart<Number, Number> can use it: call setData with the full series, sorted by x.
+public class ChartDecimator {
+
+    private static final double POINTS_PER_PIXEL = 2.0;
+    private static final int MIN_POINTS = 32;
+
+    private final XYChart<Number, Number> chart;
+    private final XYChart.Series<Number, Number> series = new XYChart.Series<>();
+    private final PauseTransition debounce = new PauseTransition(Duration.millis(150));
+
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int lastFrom = -1, lastTo = -1, lastThreshold = -1;
+
+    public ChartDecimator(XYChart<Number, Number> chart) {
+        this.chart = chart;
+        chart.getData().add(series);
+
+        // Resizes and zooms arrive in bursts, only the last one is worth reducing for
+        debounce.setOnFinished(e -> refresh());
+        InvalidationListener schedule = obs -> debounce.playFromStart();
+        chart.widthProperty().addListener(schedule);
+        Axis<Number> xAxis = chart.getXAxis();
+        if (xAxis instanceof NumberAxis axis) {
+            axis.lowerBoundProperty().addListener(schedule);
+            axis.upperBoundProperty().addListener(schedule);
+            axis.autoRangingProperty().addListener(schedule);
+        }
+    }
+
+    public XYChart.Series<Number, Number> getSeries() {
+        return series;
+    }
+
+    // Full-resolution series, x ascending. Must be called on the FX thread.
+    public void setData(double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+        lastFrom = lastTo = lastThreshold = -1;
+        refresh();
+    }
+
+    private void refresh() {
+        int from = 0, to = xs.length;
+        // A zoomed axis (auto-ranging off) only needs the visible window, plus one point either side
+        if (chart.getXAxis() instanceof NumberAxis axis && !axis.isAutoRanging() && to > 0) {
+            from = Math.max(0, lowerIndex(xs, axis.getLowerBound()) - 1);
+            to = Math.min(xs.length, lowerIndex(xs, axis.getUpperBound()) + 1);
+        }
+        double width = chart.getWidth() > 0 ? chart.getWidth() : chart.getPrefWidth();
+        int threshold = Math.max(MIN_POINTS, (int) (width * POINTS_PER_PIXEL));
+        if (from == lastFrom && to == lastTo && threshold == lastThreshold) return;
+        lastFrom = from;
+        lastTo = to;
+        lastThreshold = threshold;
+
+        int[] picked = lttb(xs, ys, from, to, threshold);
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(picked.length);
+        for (int i : picked) points.add(new XYChart.Data<>(xs[i], ys[i]));
+        series.getData().setAll(points);
+    }
+
+    // First index whose x is >= value
+    private static int lowerIndex(double[] xs, double value) {
+        int i = Arrays.binarySearch(xs, value);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    // --- LTTB ---
+
+    // Indices of at most threshold points of [from, to) that keep the visual shape of the series.
+    // First and last points are always kept; each bucket in between keeps the point forming the
+    // largest triangle with the previously kept point and the average of the next bucket.
+    public static int[] lttb(double[] xs, double[] ys, int from, int to, int threshold) {
+        int n = to - from;
+        if (n <= 0) return new int[0];
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = from + i;
+            return all;
+        }
+
+        int[] picked = new int[threshold];
+        int count = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        picked[count++] = a;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket
+            int avgStart = from + (int) Math.floor((bucket + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) Math.floor((bucket + 2) * every) + 1, to);
+            double avgX = 0, avgY = 0;
+            int avgCount = Math.max(1, avgEnd - avgStart);
+            for (int i = avgStart; i < avgEnd; i++) {
+                avgX += xs[i];
+                avgY += ys[i];
+            }
+            if (avgEnd <= avgStart) { avgX = xs[to - 1]; avgY = ys[to - 1]; }
+            else { avgX /= avgCount; avgY /= avgCount; }
+
+            // Point of this bucket with the largest triangle
+            int start = from + (int) Math.floor(bucket * every) + 1;
+            int end = from + (int) Math.floor((bucket + 1) * every) + 1;
+            double maxArea = -1;
+            int next = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((xs[a] - avgX) * (ys[i] - ys[a]) - (xs[a] - xs[i]) * (avgY - ys[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            picked[count++] = next;
+            a = next;
+        }
+
+        picked[count++] = to - 1;
+        return count == picked.length ? picked : Arrays.copyOf(picked, count);
+    }
+}
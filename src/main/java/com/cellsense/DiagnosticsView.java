@@ -0,0 +1,115 @@
+package com.cellsense;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
+
+import java.util.List;
+
+// Hidden panel (Ctrl+Shift+D) showing the Metrics registry. Refreshes once a second, only while open.
+public class DiagnosticsView {
+
+    private static Stage stage;
+
+    public static void toggle(Window owner) {
+        if (stage != null && stage.isShowing()) {
+            stage.close();
+            return;
+        }
+        if (stage == null) stage = createStage(owner);
+        stage.show();
+    }
+
+    private static Stage createStage(Window owner) {
+        List<Metrics.Histogram> histograms = Metrics.getHistograms();
+        List<Metrics.Counter> counters = Metrics.getCounters();
+        List<Metrics.Info> infos = Metrics.getInfos();
+
+        GridPane grid = new GridPane();
+        grid.setHgap(16);
+        grid.setVgap(6);
+        String[] headers = {"Timing", "Count", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"};
+        for (int c = 0; c < headers.length; c++) grid.add(header(headers[c]), c, 0);
+
+        Label[][] cells = new Label[histograms.size()][headers.length];
+        for (int r = 0; r < histograms.size(); r++) {
+            for (int c = 0; c < headers.length; c++) {
+                cells[r][c] = cell(c == 0 ? histograms.get(r).name : "");
+                grid.add(cells[r][c], c, r + 1);
+            }
+        }
+
+        int counterRow = histograms.size() + 2;
+        grid.add(header("Counter"), 0, counterRow);
+        grid.add(header("Count"), 1, counterRow);
+        Label[] counterCells = new Label[counters.size()];
+        for (int r = 0; r < counters.size(); r++) {
+            grid.add(cell(counters.get(r).name), 0, counterRow + r + 1);
+            counterCells[r] = cell("");
+            grid.add(counterCells[r], 1, counterRow + r + 1);
+        }
+
+        int infoRow = counterRow + counters.size() + 2;
+        grid.add(header("Info"), 0, infoRow);
+        grid.add(header("Value"), 1, infoRow);
+        Label[] infoCells = new Label[infos.size()];
+        for (int r = 0; r < infos.size(); r++) {
+            grid.add(cell(infos.get(r).name), 0, infoRow + r + 1);
+            infoCells[r] = cell("");
+            grid.add(infoCells[r], 1, infoRow + r + 1, headers.length - 1, 1);
+        }
+
+        Runnable refresh = () -> {
+            for (int r = 0; r < histograms.size(); r++) {
+                Metrics.Histogram h = histograms.get(r);
+                cells[r][1].setText(Long.toString(h.getCount()));
+                cells[r][2].setText(millis(h.getMeanMillis()));
+                cells[r][3].setText(millis(h.getP50Millis()));
+                cells[r][4].setText(millis(h.getP90Millis()));
+                cells[r][5].setText(millis(h.getP99Millis()));
+                cells[r][6].setText(millis(h.getMaxMillis()));
+            }
+            for (int r = 0; r < counters.size(); r++) counterCells[r].setText(Long.toString(counters.get(r).getCount()));
+            for (int r = 0; r < infos.size(); r++) infoCells[r].setText(infos.get(r).getValue().isEmpty() ? "-" : infos.get(r).getValue());
+        };
+        refresh.run();
+
+        Timeline ticker = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh.run()));
+        ticker.setCycleCount(Timeline.INDEFINITE);
+
+        VBox root = new VBox(12, header("Diagnostics"), grid);
+        root.setPadding(new Insets(20));
+        root.setStyle("-fx-background-color: #0d1117;");
+
+        Stage window = new Stage();
+        window.initOwner(owner);
+        window.setTitle("CellSense Diagnostics");
+        window.setScene(new Scene(root));
+        window.setOnShown(e -> { refresh.run(); ticker.play(); });
+        window.setOnHidden(e -> ticker.stop());
+        return window;
+    }
+
+    private static String millis(double value) {
+        return String.format("%.3f", value);
+    }
+
+    private static Label header(String text) {
+        Label label = new Label(text);
+        label.setStyle("-fx-text-fill: #8b949e; -fx-font-weight: bold;");
+        return label;
+    }
+
+    private static Label cell(String text) {
+        Label label = new Label(text);
+        label.setStyle("-fx-text-fill: white; -fx-font-family: monospace;");
+        return label;
+    }
+}
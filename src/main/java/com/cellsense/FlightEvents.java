@@ -0,0 +1,144 @@
+package com.cellsense;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+// Custom JDK Flight Recorder events. Each one is timed with begin()/commit(), so every event
+// carries its duration; fields are only filled in when shouldCommit() says it will be recorded.
+// With no recording running an event costs an allocation that escape analysis normally removes.
+//
+// The settings for these events live in the bundled cellsense.jfc. To record:
+//   app:   --record[=<dir>]   continuous ring on disk, dumped to <dir> on exit (default ~/cellsense_recordings)
+//   JVM:   -XX:StartFlightRecording:settings=default,<path to cellsense.jfc>,filename=app.jfr
+public class FlightEvents {
+
+    // --- EVENTS ---
+
+    @Name("com.cellsense.Probe")
+    @Label("Battery Probe")
+    @Category({"CellSense", "Battery"})
+    @Description("One read of the battery provider, successful or not")
+    @StackTrace(false)
+    public static class Probe extends Event {
+        @Label("Probe") public String probe;
+        @Label("Provider") public String provider;
+        @Label("Failed") public boolean failed;
+        @Label("Error") @Description("Why the reading failed; a failed probe reports no value") public String error;
+    }
+
+    @Name("com.cellsense.Powercfg")
+    @Label("Powercfg Run")
+    @Category({"CellSense", "Report"})
+    @Description("Generating the battery report with powercfg")
+    @StackTrace(false)
+    public static class Powercfg extends Event {
+        @Label("Exit Code") public int exitCode;
+        @Label("Report Size") @DataAmount public long reportBytes;
+    }
+
+    @Name("com.cellsense.ReportParse")
+    @Label("Report Parse Stage")
+    @Category({"CellSense", "Report"})
+    @Description("One stage of turning the battery report into rows")
+    @StackTrace(false)
+    public static class ReportParse extends Event {
+        @Label("Stage") public String stage;
+        @Label("Input Chars") public long inputChars;
+        @Label("Rows") public int rows;
+    }
+
+    @Name("com.cellsense.HistorySave")
+    @Label("History Save")
+    @Category({"CellSense", "History"})
+    @Description("Appending a sample to the history log")
+    @StackTrace(false)
+    public static class HistorySave extends Event {
+        @Label("Bytes Written") @DataAmount public long bytesWritten;
+        @Label("Samples In Log") public int samples;
+    }
+
+    @Name("com.cellsense.Alarm")
+    @Label("Alarm Triggered")
+    @Category({"CellSense", "Sound"})
+    @Description("An alarm sound being started, including clip lookup")
+    @StackTrace(false)
+    public static class Alarm extends Event {
+        @Label("Sound") public String sound;
+        @Label("Looping") public boolean looping;
+        @Label("Preview") public boolean preview;
+    }
+
+    @Name("com.cellsense.ViewBuild")
+    @Label("View Construction")
+    @Category({"CellSense", "UI"})
+    @Description("Building a view's node tree on its first visit")
+    @StackTrace(false)
+    public static class ViewBuild extends Event {
+        @Label("View") public String view;
+        @Label("Nodes") public int nodes;
+        @Label("Data Prefetched") public boolean prefetched;
+    }
+
+    // --- RECORDING ---
+
+    private static final long RING_MAX_BYTES = Long.getLong("cellsense.record.maxMb", 64) * 1024 * 1024;
+    private static final Duration RING_MAX_AGE = Duration.ofHours(Long.getLong("cellsense.record.maxHours", 24));
+
+    // Handles "--record" and "--record=<dir>". Returns the recording, or null if not requested.
+    public static Recording startFromArgs(Iterable<String> args) {
+        for (String arg : args) {
+            if (arg.equals("--record")) return startRing(Path.of(System.getProperty("user.home"), "cellsense_recordings"));
+            if (arg.startsWith("--record=")) return startRing(Path.of(arg.substring("--record=".length())));
+        }
+        return null;
+    }
+
+    // Records continuously into JFR's on-disk repository, bounded by size and age, and writes
+    // what is left in the ring to dir when the app exits.
+    public static Recording startRing(Path dir) {
+        try {
+            Files.createDirectories(dir);
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(bundledConfiguration().getSettings());
+
+            Recording recording = new Recording(settings);
+            recording.setName("cellsense");
+            recording.setToDisk(true);
+            recording.setMaxSize(RING_MAX_BYTES);
+            recording.setMaxAge(RING_MAX_AGE);
+            recording.setDumpOnExit(true);
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            recording.setDestination(dir.resolve("cellsense-" + stamp + ".jfr"));
+            recording.start();
+            Metrics.RECORDING_FILE.set(recording.getDestination().toString());
+            return recording;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static Configuration bundledConfiguration() throws Exception {
+        try (Reader reader = new InputStreamReader(FlightEvents.class.getResourceAsStream("/cellsense.jfc"), StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+}
@@ -2,84 +2,165 @@ package com.cellsense;
 
 import java.io.*;
 import java.nio.file.*;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 public class HistoryManager {
 
-    private static final String FILE_PATH = System.getProperty("user.home") + "/cellsense_history.csv";
-    private static Map<String, DailyStat> historyData = new HashMap<>();
+    // Old per-day CSV, only read once to carry its days over
+    private static final String LEGACY_FILE_PATH = System.getProperty("user.home") + "/cellsense_history.csv";
+    // A simulated battery gets its own log so replayed days never mix with real ones
+    private static final String LOG_PATH = System.getProperty("user.home")
+            + (AppClock.isSimulated() ? "/cellsense_history_sim.bin" : "/cellsense_history.bin");
+    private static final HistoryStore historyData = new HistoryStore();
+    private static SampleLog sampleLog;
 
-    // Data Structure for a single day
+    // Data Structure for a single day. Immutable: updates produce a new instance.
     public static class DailyStat {
-        public String date;
-        public int minLevel = 100;
-        public int maxLevel = 0;
-        public int startLevel = 0; // Level when app first opened today
+        public final String date;
+        public final int minLevel;
+        public final int maxLevel;
+        public final int startLevel; // Level when app first opened today
 
-        public DailyStat(String date) { this.date = date; }
+        public DailyStat(String date, int minLevel, int maxLevel, int startLevel) {
+            this.date = date;
+            this.minLevel = minLevel;
+            this.maxLevel = maxLevel;
+            this.startLevel = startLevel;
+        }
+
+        public static DailyStat of(String date, int level) {
+            return new DailyStat(date, level, level, level);
+        }
+
+        public DailyStat withSample(int level) {
+            if (level >= minLevel && level <= maxLevel) return this;
+            return new DailyStat(date, Math.min(minLevel, level), Math.max(maxLevel, level), startLevel);
+        }
     }
 
     // Initialize: Load old data and start tracking today
     public static void init() {
+        try {
+            sampleLog = new SampleLog(Path.of(LOG_PATH));
+        } catch (IOException e) { e.printStackTrace(); }
         loadData();
 
-        // Start a background thread to update "Today's" stats every minute
+        // Record on every change the sampler sees instead of probing the battery a second time.
+        // Between changes the level is flat, so the log loses nothing by skipping those minutes.
+        PowerEventBus.subscribe(PowerEventBus.LevelChanged.class, e -> recordSample(e.snapshot));
+        PowerEventBus.subscribe(PowerEventBus.PluggedIn.class, e -> recordSample(e.snapshot));
+        PowerEventBus.subscribe(PowerEventBus.Unplugged.class, e -> recordSample(e.snapshot));
+
+        // A day without any change still needs its entry: carry the latest reading over midnight
         Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
-            updateToday();
-            saveData();
-        }, 0, 1, TimeUnit.MINUTES);
+            BatterySnapshot latest = BatterySampler.getLatest();
+            if (latest != BatterySnapshot.EMPTY && !historyData.contains(AppClock.today())) recordSample(latest);
+        }, AppClock.toRealMillis(60_000), AppClock.toRealMillis(60_000), TimeUnit.MILLISECONDS);
     }
 
-    private static void updateToday() {
-        String today = LocalDate.now().toString();
-        int currentLevel = BatteryManager.getBatteryLevel();
+    public static SampleLog getSampleLog() {
+        return sampleLog;
+    }
 
-        DailyStat stat = historyData.getOrDefault(today, new DailyStat(today));
+    private static void recordSample(BatterySnapshot snapshot) {
+        recordSample(snapshot.timestamp / 1000, snapshot.level, snapshot.plugged);
+    }
 
-        // Update logic
-        if (stat.startLevel == 0) stat.startLevel = currentLevel;
-        if (currentLevel < stat.minLevel) stat.minLevel = currentLevel;
-        if (currentLevel > stat.maxLevel) stat.maxLevel = currentLevel;
+    // Updates today's stats and appends the sample to the log: one 10-byte write, no file rewrite
+    private static void recordSample(long epochSeconds, int level, boolean plugged) {
+        historyData.record(LocalDate.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneId.systemDefault()), level);
 
-        historyData.put(today, stat);
+        if (sampleLog == null) return;
+        FlightEvents.HistorySave event = new FlightEvents.HistorySave();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            sampleLog.append(epochSeconds, level, SampleLog.flags(plugged, plugged && level < 100));
+        } catch (IOException e) { e.printStackTrace(); }
+        Metrics.HISTORY_SAVE.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytesWritten = SampleLog.RECORD_SIZE;
+            event.samples = sampleLog.size();
+            event.commit();
+        }
     }
 
     public static List<DailyStat> getLast7Days() {
-        return historyData.values().stream()
-                .sorted(Comparator.comparing(s -> s.date))
-                .skip(Math.max(0, historyData.size() - 7)) // Keep last 7
-                .collect(Collectors.toList());
+        return historyData.getLastN(7);
     }
 
-    // --- FILE I/O (Simple CSV) ---
-    private static void saveData() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FILE_PATH))) {
-            for (DailyStat stat : historyData.values()) {
-                writer.println(stat.date + "," + stat.minLevel + "," + stat.maxLevel + "," + stat.startLevel);
-            }
-        } catch (IOException e) { e.printStackTrace(); }
+    public static List<DailyStat> getLastN(int n) {
+        return historyData.getLastN(n);
+    }
+
+    // Days from..to inclusive, oldest first
+    public static List<DailyStat> getRange(LocalDate from, LocalDate to) {
+        return historyData.getRange(from, to);
     }
 
+    // --- FILE I/O ---
+
+    // Rebuilds the daily stats from the sample log, then fills in days only the legacy CSV knows
     private static void loadData() {
-        File file = new File(FILE_PATH);
+        if (sampleLog != null) {
+            ZoneId zone = ZoneId.systemDefault();
+            // Each day is folded in primitives and published once; the LocalDate only changes at day boundaries
+            DayFold fold = new DayFold(zone, historyData);
+            sampleLog.scan(fold);
+            fold.flush();
+        }
+        if (!AppClock.isSimulated()) loadLegacyData();
+    }
+
+    static class DayFold implements SampleLog.Visitor {
+        private final ZoneId zone;
+        private final HistoryStore into;
+        private LocalDate day;
+        private long dayEnd = Long.MIN_VALUE;
+        private int min, max, start;
+
+        DayFold(ZoneId zone, HistoryStore into) {
+            this.zone = zone;
+            this.into = into;
+        }
+
+        @Override
+        public void visit(long epochSeconds, int level, int flags) {
+            if (day == null || epochSeconds >= dayEnd) {
+                flush();
+                day = LocalDate.ofInstant(Instant.ofEpochSecond(epochSeconds), zone);
+                dayEnd = day.plusDays(1).atStartOfDay(zone).toEpochSecond();
+                min = max = start = level;
+                return;
+            }
+            if (level < min) min = level;
+            if (level > max) max = level;
+        }
+
+        void flush() {
+            if (day != null) into.put(new DailyStat(day.toString(), min, max, start));
+        }
+    }
+
+    private static void loadLegacyData() {
+        File file = new File(LEGACY_FILE_PATH);
         if (!file.exists()) return;
 
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 String[] parts = line.split(",");
-                if (parts.length == 4) {
-                    DailyStat stat = new DailyStat(parts[0]);
-                    stat.minLevel = Integer.parseInt(parts[1]);
-                    stat.maxLevel = Integer.parseInt(parts[2]);
-                    stat.startLevel = Integer.parseInt(parts[3]);
-                    historyData.put(stat.date, stat);
+                if (parts.length == 4 && !historyData.contains(LocalDate.parse(parts[0]))) {
+                    historyData.put(new DailyStat(parts[0],
+                            Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3])));
                 }
             }
         } catch (IOException e) { e.printStackTrace(); }
     }
-}
\ No newline at end of file
+}
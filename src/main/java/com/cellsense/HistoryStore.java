@@ -0,0 +1,53 @@
+package com.cellsense;
+
+import com.cellsense.HistoryManager.DailyStat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Daily stats ordered by date. The sampler thread writes while the UI reads:
+// stats are replaced, never mutated, so readers see whole values and never take a lock.
+public class HistoryStore {
+
+    private final ConcurrentSkipListMap<LocalDate, DailyStat> days = new ConcurrentSkipListMap<>();
+
+    // Folds one sample into the day's stats
+    public void record(LocalDate day, int level) {
+        days.compute(day, (d, stat) -> stat == null ? DailyStat.of(d.toString(), level) : stat.withSample(level));
+    }
+
+    public void put(DailyStat stat) {
+        days.put(LocalDate.parse(stat.date), stat);
+    }
+
+    public DailyStat get(LocalDate day) {
+        return days.get(day);
+    }
+
+    public boolean contains(LocalDate day) {
+        return days.containsKey(day);
+    }
+
+    public int size() {
+        return days.size();
+    }
+
+    // Days from..to inclusive, oldest first
+    public List<DailyStat> getRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) return Collections.emptyList();
+        return new ArrayList<>(days.subMap(from, true, to, true).values());
+    }
+
+    // The n most recent days, oldest first. Walks n entries from the tail instead of sorting everything.
+    public List<DailyStat> getLastN(int n) {
+        List<DailyStat> result = new ArrayList<>(Math.max(0, Math.min(n, 64)));
+        Iterator<DailyStat> newestFirst = days.descendingMap().values().iterator();
+        while (result.size() < n && newestFirst.hasNext()) result.add(newestFirst.next());
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -5,7 +5,6 @@ import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.chart.AreaChart;
 import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
@@ -14,10 +13,17 @@ import javafx.util.StringConverter;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class HistoryView {
 
+    private static TableView<BatteryReportManager.UsageRecord> usageTable;
+    private static TableView<BatteryReportManager.CapacityRecord> capTable;
+    private static ChartDecimator drainSeries;
+    private static BatteryReportManager.ReportData shown;
+
     public static VBox create() {
         Label header = new Label("System History Report");
         header.setStyle("-fx-font-size: 28px; -fx-font-weight: 900; -fx-text-fill: white;");
@@ -52,13 +58,14 @@ public class HistoryView {
         areaChart.setCreateSymbols(false);
         areaChart.setPrefHeight(300);
         areaChart.setStyle("-fx-background-color: transparent;");
+        drainSeries = new ChartDecimator(areaChart);
 
         // --- TABLES ---
         Label usageTitle = new Label("Recent Usage Details");
         usageTitle.getStyleClass().add(Styles.TITLE_4);
         usageTitle.setStyle("-fx-text-fill: #8b949e; -fx-padding: 20 0 0 0;");
 
-        TableView<BatteryReportManager.UsageRecord> usageTable = new TableView<>();
+        usageTable = new TableView<>();
         usageTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         usageTable.getStyleClass().addAll(Styles.STRIPED, Styles.DENSE);
         usageTable.setPrefHeight(300);
@@ -80,7 +87,7 @@ public class HistoryView {
         capTitle.getStyleClass().add(Styles.TITLE_4);
         capTitle.setStyle("-fx-text-fill: #8b949e; -fx-padding: 20 0 0 0;");
 
-        TableView<BatteryReportManager.CapacityRecord> capTable = new TableView<>();
+        capTable = new TableView<>();
         capTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         capTable.getStyleClass().addAll(Styles.STRIPED, Styles.DENSE);
         capTable.setPrefHeight(300);
@@ -95,15 +102,14 @@ public class HistoryView {
         capTable.getColumns().addAll(dateCol, fullCol, designCol);
 
         // --- LOAD DATA ---
-        BatteryReportManager.getFullReportAsync().thenAccept(data -> {
+        // Local store first (instant), then the fresh report once its new rows are ingested
+        AtomicBoolean refreshed = new AtomicBoolean(false);
+        BatteryReportManager.getStoredReportAsync().thenAccept(data -> {
             Platform.runLater(() -> {
-                usageTable.setItems(data.recentUsage);
-                capTable.setItems(data.capacityHistory);
-
-                // USE THE NEW HIGH-RES DATA
-                populateChart(areaChart, data.drainGraph);
+                if (!refreshed.get()) showData(data);
             });
         });
+        loadReport(refreshed);
 
         VBox content = new VBox(15, chartTitle, areaChart, usageTitle, usageTable, capTitle, capTable);
         content.setPadding(new Insets(0, 20, 40, 0));
@@ -116,8 +122,41 @@ public class HistoryView {
         return root;
     }
 
-    private static void populateChart(AreaChart<Number, Number> chart, List<BatteryReportManager.GraphPoint> points) {
-        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+    // Re-entering the view: the tables already show the last data, only swap in a newer report
+    public static void refresh() {
+        loadReport(new AtomicBoolean());
+    }
+
+    // Warms the report cache before the view is first opened. Any thread.
+    public static void prefetch() {
+        BatteryReportManager.getFullReportAsync().join();
+    }
+
+    private static void loadReport(AtomicBoolean refreshed) {
+        BatteryReportManager.getFullReportAsync().thenAccept(data -> {
+            Platform.runLater(() -> {
+                refreshed.set(true);
+                showData(data);
+            });
+        });
+    }
+
+    private static void showData(BatteryReportManager.ReportData data) {
+        // A cache hit hands back the same report, nothing to redraw
+        if (data == shown) return;
+        shown = data;
+        usageTable.setItems(data.recentUsage);
+        capTable.setItems(data.capacityHistory);
+
+        // USE THE NEW HIGH-RES DATA
+        populateChart(drainSeries, data.drainGraph);
+    }
+
+    // Only a width-sized reduction of the points becomes chart nodes, the decimator keeps the full series
+    private static void populateChart(ChartDecimator chart, List<BatteryReportManager.GraphPoint> points) {
+        double[] xs = new double[points.size()];
+        double[] ys = new double[points.size()];
+        int count = 0;
 
         // The script data format is always ISO: 2025-11-03T19:18:24
         DateTimeFormatter parser = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
@@ -125,10 +164,11 @@ public class HistoryView {
         for (BatteryReportManager.GraphPoint p : points) {
             try {
                 LocalDateTime date = LocalDateTime.parse(p.timestamp, parser);
-                long epoch = date.toEpochSecond(ZoneOffset.UTC);
-                series.getData().add(new XYChart.Data<>(epoch, p.percentage));
+                xs[count] = date.toEpochSecond(ZoneOffset.UTC);
+                ys[count] = p.percentage;
+                count++;
             } catch (Exception e) { }
         }
-        chart.getData().add(series);
+        chart.setData(Arrays.copyOf(xs, count), Arrays.copyOf(ys, count));
     }
-}
\ No newline at end of file
+}
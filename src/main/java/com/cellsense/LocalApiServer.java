@@ -0,0 +1,211 @@
+package com.cellsense;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+// Optional read-only HTTP API on the loopback interface, for local monitoring agents.
+// Off unless -Dcellsense.http.port=<port> is set. Every response is built from state already in
+// memory (the latest snapshot, the history store, the last loaded report, the metrics registry),
+// so a request never probes the battery or runs powercfg, however often it is scraped.
+//   GET /battery   latest snapshot and runtime estimate (JSON)
+//   GET /history   daily stats, oldest first; ?days=<n>, default 30, 400 if invalid (JSON)
+//   GET /report    summary of the last loaded battery report, 404 before the first load (JSON)
+//   GET /metrics   Metrics registry and battery gauges (Prometheus text format)
+public class LocalApiServer {
+
+    private static final int PORT = Integer.getInteger("cellsense.http.port", -1);
+    private static final int DEFAULT_HISTORY_DAYS = 30;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private static HttpServer server;
+
+    public static boolean isEnabled() {
+        return PORT >= 0;
+    }
+
+    // Binds 127.0.0.1:<port>; each request runs on its own virtual thread
+    public static synchronized void start() {
+        if (!isEnabled() || server != null) return;
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT), 0);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/battery", exchange -> handle(exchange, "application/json", LocalApiServer::battery));
+            server.createContext("/history", exchange -> handle(exchange, "application/json", LocalApiServer::history));
+            server.createContext("/report", exchange -> handle(exchange, "application/json", LocalApiServer::report));
+            server.createContext("/metrics", exchange -> handle(exchange, "text/plain; version=0.0.4", LocalApiServer::metrics));
+            server.start();
+            Metrics.API_ADDRESS.set("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+        } catch (IOException e) {
+            e.printStackTrace();
+            server = null;
+        }
+    }
+
+    public static synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        server = null;
+        Metrics.API_ADDRESS.set("");
+    }
+
+    // --- ROUTING ---
+
+    // Body of a response; null means 404, IllegalArgumentException means 400
+    private interface Responder {
+        String respond(HttpExchange exchange);
+    }
+
+    private static void handle(HttpExchange exchange, String contentType, Responder responder) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            // Errors are answered here, while the exchange is still open and no headers went out
+            String body;
+            int status = 200;
+            try {
+                body = responder.respond(exchange);
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = "{\"error\":" + quote(String.valueOf(e.getMessage())) + "}";
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                status = 500;
+                body = "{\"error\":\"internal error\"}";
+            }
+            if (body == null) {
+                status = 404;
+                body = "{\"error\":\"not available yet\"}";
+            }
+            if (status != 200) contentType = "application/json";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            if (method.equals("HEAD")) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    // --- ENDPOINTS ---
+
+    private static String battery(HttpExchange exchange) {
+        BatterySnapshot s = BatterySampler.getLatest();
+        if (s == BatterySnapshot.EMPTY) return null;
+        RuntimeEstimator.Estimate estimate = BatterySampler.getEstimator().estimate();
+        return "{\"level\":" + s.level
+                + ",\"plugged\":" + s.plugged
+                + ",\"voltage\":" + number(s.voltage)
+                + ",\"timestamp\":" + s.timestamp
+                + ",\"probeLatencyMs\":" + s.probeLatencyMs
+                + ",\"estimate\":{\"charging\":" + estimate.charging
+                + ",\"minutes\":" + number(estimate.minutes)
+                + ",\"low\":" + number(estimate.low)
+                + ",\"high\":" + number(estimate.high) + "}}";
+    }
+
+    private static String history(HttpExchange exchange) {
+        int days = DEFAULT_HISTORY_DAYS;
+        String value = queryParam(exchange, "days");
+        if (value != null) {
+            try {
+                days = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                days = -1;
+            }
+            if (days < 0) throw new IllegalArgumentException("days must be a non-negative integer, got '" + value + "'");
+        }
+        List<HistoryManager.DailyStat> stats = HistoryManager.getLastN(days);
+        StringBuilder out = new StringBuilder(32 + stats.size() * 72).append("{\"days\":[");
+        for (int i = 0; i < stats.size(); i++) {
+            HistoryManager.DailyStat d = stats.get(i);
+            if (i > 0) out.append(',');
+            out.append("{\"date\":").append(quote(d.date))
+                    .append(",\"minLevel\":").append(d.minLevel)
+                    .append(",\"maxLevel\":").append(d.maxLevel)
+                    .append(",\"startLevel\":").append(d.startLevel).append('}');
+        }
+        return out.append("]}").toString();
+    }
+
+    private static String report(HttpExchange exchange) {
+        ReportCache cache = BatteryReportManager.getCache();
+        BatteryReportManager.Report report = cache.peek();
+        if (report == null) return null;
+        Map<String, String> summary = report.summary;
+        return "{\"designCapacity\":" + quote(summary.getOrDefault("DesignCapacity", "0"))
+                + ",\"fullChargeCapacity\":" + quote(summary.getOrDefault("FullChargeCapacity", "0"))
+                + ",\"cycleCount\":" + quote(summary.getOrDefault("CycleCount", "0"))
+                + ",\"loadedAt\":" + cache.getLastLoadedAt() + "}";
+    }
+
+    private static String metrics(HttpExchange exchange) {
+        StringBuilder out = new StringBuilder(4096);
+        for (Metrics.Histogram h : Metrics.getHistograms()) {
+            String name = "cellsense_" + h.name.replace('.', '_') + "_seconds";
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : QUANTILES) {
+                out.append(name).append("{quantile=\"").append(q).append("\"} ").append(h.percentileNanos(q) / 1e9).append('\n');
+            }
+            out.append(name).append("_sum ").append(h.getSumNanos() / 1e9).append('\n');
+            out.append(name).append("_count ").append(h.getCount()).append('\n');
+        }
+        for (Metrics.Counter c : Metrics.getCounters()) {
+            String name = "cellsense_" + c.name.replace('.', '_') + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(c.getCount()).append('\n');
+        }
+
+        BatterySnapshot s = BatterySampler.getLatest();
+        if (s != BatterySnapshot.EMPTY) {
+            gauge(out, "cellsense_battery_level_percent", s.level);
+            gauge(out, "cellsense_battery_plugged", s.plugged ? 1 : 0);
+            if (!Double.isNaN(s.voltage)) gauge(out, "cellsense_battery_voltage_volts", s.voltage);
+            gauge(out, "cellsense_battery_sample_timestamp_seconds", s.timestamp / 1000.0);
+        }
+        return out.toString();
+    }
+
+    // --- HELPERS ---
+
+    // Value of the first name=value pair in the query string, null if absent
+    private static String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (key.equals(name)) return eq < 0 ? "" : pair.substring(eq + 1);
+        }
+        return null;
+    }
+
+    private static void gauge(StringBuilder out, String name, double value) {
+        out.append("# TYPE ").append(name).append(" gauge\n").append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,205 @@
+package com.cellsense;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// The app's own cost: latency histograms for the hot paths and counters for failures and processes,
+// plus a few info strings saying where optional features put things (recording file, API address).
+// Every metric is a static field created up front, so recording is a few atomic adds on
+// preallocated arrays: no locks, no allocation, no map lookup. Exposed as MBeans under
+// com.cellsense:type=Histogram|Counter|Info,name=<name> and in the hidden diagnostics panel.
+public class Metrics {
+
+    // --- METRIC TYPES ---
+
+    public interface HistogramMXBean {
+        long getCount();
+        double getMeanMillis();
+        double getMaxMillis();
+        double getP50Millis();
+        double getP90Millis();
+        double getP99Millis();
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface InfoMXBean {
+        String getValue();
+    }
+
+    // Log-linear buckets: 4 per power of two of nanoseconds, so any percentile is within ~19%
+    public static class Histogram implements HistogramMXBean {
+        private static final int SUB_BITS = 2;
+        private static final int BUCKETS = 64 << SUB_BITS;
+
+        public final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(String name) { this.name = name; }
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.incrementAndGet();
+            sum.addAndGet(nanos);
+            long seen;
+            while (nanos > (seen = max.get()) && !max.compareAndSet(seen, nanos)) { }
+        }
+
+        // Convenience for "long start = System.nanoTime(); ...; recordSince(start)"
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        static int bucketOf(long nanos) {
+            if (nanos < (1 << SUB_BITS)) return (int) nanos;
+            int msb = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (msb - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return ((msb - SUB_BITS + 1) << SUB_BITS) | sub;
+        }
+
+        // Upper edge of a bucket, in nanoseconds
+        static long upperOf(int bucket) {
+            if (bucket < (1 << SUB_BITS)) return bucket;
+            int msb = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+            long sub = bucket & ((1 << SUB_BITS) - 1);
+            return ((1L << SUB_BITS | sub) + 1 << (msb - SUB_BITS)) - 1;
+        }
+
+        public long percentileNanos(double q) {
+            long total = count.get();
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets.get(b);
+                if (seen >= rank) return Math.min(upperOf(b), max.get());
+            }
+            return max.get();
+        }
+
+        public long getSumNanos() { return sum.get(); }
+
+        @Override public long getCount() { return count.get(); }
+        @Override public double getMeanMillis() { long n = count.get(); return n == 0 ? 0 : sum.get() / 1e6 / n; }
+        @Override public double getMaxMillis() { return max.get() / 1e6; }
+        @Override public double getP50Millis() { return percentileNanos(0.50) / 1e6; }
+        @Override public double getP90Millis() { return percentileNanos(0.90) / 1e6; }
+        @Override public double getP99Millis() { return percentileNanos(0.99) / 1e6; }
+    }
+
+    public static class Counter implements CounterMXBean {
+        public final String name;
+        private final AtomicLong count = new AtomicLong();
+
+        Counter(String name) { this.name = name; }
+
+        public void increment() { count.incrementAndGet(); }
+
+        @Override public long getCount() { return count.get(); }
+    }
+
+    // Set once when a feature starts; empty while it is off
+    public static class Info implements InfoMXBean {
+        public final String name;
+        private volatile String value = "";
+
+        Info(String name) { this.name = name; }
+
+        public void set(String value) { this.value = value; }
+
+        @Override public String getValue() { return value; }
+    }
+
+    // --- REGISTRY ---
+
+    private static final List<Histogram> histograms = new ArrayList<>();
+    private static final List<Counter> counters = new ArrayList<>();
+    private static final List<Info> infos = new ArrayList<>();
+
+    public static final Histogram PROBE_LEVEL = histogram("probe.level");
+    public static final Histogram PROBE_PLUGGED = histogram("probe.plugged");
+    public static final Histogram PROBE_VOLTAGE = histogram("probe.voltage");
+    public static final Histogram POWERCFG = histogram("report.powercfg");
+    public static final Histogram REPORT_PARSE = histogram("report.parse");
+    public static final Histogram HISTORY_SAVE = histogram("history.save");
+    // FX-thread time spent applying one battery update (what used to be the checkBattery tick)
+    public static final Histogram FX_UPDATE = histogram("fx.update");
+
+    // Probe calls that timed out or threw; the sampler fell back to the previous reading
+    public static final Counter PROBE_FAILURES = counter("probe.failures");
+    // Helper-process requests that failed (timeout or exit) and were retried on a fresh process
+    public static final Counter CHANNEL_FAILURES = counter("probe.channel.failures");
+    public static final Counter PROCESSES_SPAWNED = counter("process.spawned");
+    // Battery gauge work, to confirm it goes quiet while the window is hidden
+    public static final Counter GAUGE_FRAMES_RENDERED = counter("gauge.frames.rendered");
+    public static final Counter GAUGE_UPDATES_APPLIED = counter("gauge.updates.applied");
+    public static final Counter GAUGE_UPDATES_SKIPPED = counter("gauge.updates.skipped");
+
+    // Flight recording started with --record, written there on exit
+    public static final Info RECORDING_FILE = info("recording.file");
+    // Base URL of the local HTTP API, when -Dcellsense.http.port is set
+    public static final Info API_ADDRESS = info("api.address");
+
+    private static Histogram histogram(String name) {
+        Histogram h = new Histogram(name);
+        histograms.add(h);
+        return h;
+    }
+
+    private static Counter counter(String name) {
+        Counter c = new Counter(name);
+        counters.add(c);
+        return c;
+    }
+
+    private static Info info(String name) {
+        Info i = new Info(name);
+        infos.add(i);
+        return i;
+    }
+
+    public static List<Histogram> getHistograms() {
+        return Collections.unmodifiableList(histograms);
+    }
+
+    public static List<Counter> getCounters() {
+        return Collections.unmodifiableList(counters);
+    }
+
+    public static List<Info> getInfos() {
+        return Collections.unmodifiableList(infos);
+    }
+
+    // Publishes every metric on the platform MBean server (JConsole, VisualVM, jcmd)
+    public static void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Histogram h : histograms) {
+                ObjectName name = new ObjectName("com.cellsense:type=Histogram,name=" + h.name);
+                if (!server.isRegistered(name)) server.registerMBean(h, name);
+            }
+            for (Counter c : counters) {
+                ObjectName name = new ObjectName("com.cellsense:type=Counter,name=" + c.name);
+                if (!server.isRegistered(name)) server.registerMBean(c, name);
+            }
+            for (Info i : infos) {
+                ObjectName name = new ObjectName("com.cellsense:type=Info,name=" + i.name);
+                if (!server.isRegistered(name)) server.registerMBean(i, name);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.cellsense;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Decides when the next battery sample is taken, instead of a fixed 2-second tick.
+// Visible window: fast, for a live UI. Hidden: paced by how soon an alarm limit could be crossed,
+// so polling tightens near a threshold and relaxes far away from it. Past a limit it only stays
+// fast while the alarm is sounding, so a laptop parked on AC above the max limit idles at 60 s.
+public class PollScheduler {
+
+    public static final long MIN_DELAY_MS = 2_000;
+    public static final long MAX_DELAY_MS = 60_000;
+    // Delay while the estimator has no rate yet
+    static final long LEARNING_DELAY_MS = 10_000;
+    // Samples we want to take before the earliest possible crossing
+    static final int SAMPLES_BEFORE_CROSSING = 4;
+    // How long a non-looping alarm counts as sounding after the limit was reached
+    static final long ALARM_START_MS = 30_000;
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cellsense-poll");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // App flips this when the stage is shown; starting minimized keeps the relaxed pace
+    private static volatile boolean showing = false;
+    private static boolean started;
+    private static ScheduledFuture<?> pending;
+    private static final Pacer pacer = new Pacer();
+
+    // Starts the loop. Snapshots reach the app through BatterySampler and PowerEventBus.
+    public static synchronized void start() {
+        started = true;
+        schedule(0);
+    }
+
+    // Showing the window polls right away instead of waiting out a long hidden-state delay
+    public static synchronized void setShowing(boolean isShowing) {
+        boolean wasShowing = showing;
+        showing = isShowing;
+        if (isShowing && !wasShowing && started) schedule(0);
+    }
+
+    private static synchronized void schedule(long delayMs) {
+        if (pending != null) pending.cancel(false);
+        pending = timer.schedule(PollScheduler::tick, AppClock.toRealMillis(delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    private static void tick() {
+        BatterySampler.sampleAsync().whenComplete((snapshot, error) -> {
+            long delay = MIN_DELAY_MS;
+            if (snapshot != null) {
+                delay = pacer.nextDelay(snapshot, PreferenceManager.getSettings(), BatterySampler.getEstimator(), showing, AppClock.millis());
+            }
+            schedule(delay);
+        });
+    }
+
+    // The pace of one sampling loop: nextDelayMillis plus the one piece of state it needs, when the
+    // current alarm zone was entered. The app runs one; tests drive their own in virtual time.
+    // Not thread-safe: a loop asks for its next delay only after the previous sample is done.
+    public static class Pacer {
+        private long zoneEnteredAt = -1;
+
+        public long nextDelay(BatterySnapshot snapshot, PreferenceManager.Settings settings,
+                              RuntimeEstimator estimator, boolean showing, long now) {
+            double limit = snapshot.plugged ? settings.maxLimit : settings.minLimit;
+            RuntimeEstimator.Estimate toLimit = estimator.estimateTo(limit);
+            boolean sounding = alarmSounding(snapshot, settings, now);
+            return nextDelayMillis(snapshot, limit, toLimit, showing, settings.alarmActive, sounding);
+        }
+
+        // A looping alarm sounds for as long as the level stays past the limit; a single-shot one
+        // only just after the limit was reached
+        private boolean alarmSounding(BatterySnapshot snapshot, PreferenceManager.Settings settings, long now) {
+            AlarmPolicy.Decision decision = AlarmPolicy.decide(snapshot.level, snapshot.plugged, settings);
+            boolean inZone = decision == AlarmPolicy.Decision.PLAY_MAX || decision == AlarmPolicy.Decision.PLAY_MIN;
+            if (!inZone) {
+                zoneEnteredAt = -1;
+                return false;
+            }
+            if (zoneEnteredAt < 0) zoneEnteredAt = now;
+            boolean loop = decision == AlarmPolicy.Decision.PLAY_MAX ? settings.maxLoop : settings.minLoop;
+            return loop || now - zoneEnteredAt < ALARM_START_MS;
+        }
+    }
+
+    // The policy itself, kept free of state so it can be checked in isolation
+    public static long nextDelayMillis(BatterySnapshot snapshot, double limit, RuntimeEstimator.Estimate toLimit,
+                                       boolean showing, boolean alarmActive, boolean alarmSounding) {
+        if (showing) return MIN_DELAY_MS;
+        if (!alarmActive) return MAX_DELAY_MS;
+
+        // Past the limit: watch closely for the plug change that stops a sounding alarm, otherwise
+        // nothing is about to happen (the zone was already reported) and the slow pace will do
+        double distance = snapshot.plugged ? limit - snapshot.level : snapshot.level - limit;
+        if (distance <= 0) return alarmSounding ? MIN_DELAY_MS : MAX_DELAY_MS;
+
+        if (!toLimit.isKnown()) return LEARNING_DELAY_MS;
+
+        // Pace on the optimistic (fastest) bound so a quick drain cannot slip between two samples
+        double earliestMs = toLimit.low * 60_000;
+        long delay = (long) (earliestMs / SAMPLES_BEFORE_CROSSING);
+        if (distance <= 2) delay = Math.min(delay, LEARNING_DELAY_MS);
+        return Math.max(MIN_DELAY_MS, Math.min(MAX_DELAY_MS, delay));
+    }
+}
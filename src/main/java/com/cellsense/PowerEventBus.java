@@ -0,0 +1,155 @@
+package com.cellsense;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Turns the snapshot stream into edge events, so components react to changes instead of
+// re-deriving state from every raw reading. publish() never blocks: events are queued and
+// each listener runs on its own executor (the bus thread by default, or e.g. Platform::runLater).
+public class PowerEventBus {
+
+    // --- EVENTS ---
+
+    public abstract static class PowerEvent {
+        public final BatterySnapshot snapshot;
+
+        PowerEvent(BatterySnapshot snapshot) { this.snapshot = snapshot; }
+    }
+
+    public static class PluggedIn extends PowerEvent {
+        PluggedIn(BatterySnapshot snapshot) { super(snapshot); }
+    }
+
+    public static class Unplugged extends PowerEvent {
+        Unplugged(BatterySnapshot snapshot) { super(snapshot); }
+    }
+
+    public static class FullyCharged extends PowerEvent {
+        FullyCharged(BatterySnapshot snapshot) { super(snapshot); }
+    }
+
+    // Also sent once for the very first snapshot (previousLevel = -1) so listeners can initialise
+    public static class LevelChanged extends PowerEvent {
+        public final int previousLevel;
+
+        LevelChanged(BatterySnapshot snapshot, int previousLevel) {
+            super(snapshot);
+            this.previousLevel = previousLevel;
+        }
+    }
+
+    public enum Limit { MAX, MIN }
+
+    // entered = true when the level moved into the alarm zone of the limit, false when it left
+    public static class ThresholdCrossed extends PowerEvent {
+        public final Limit limit;
+        public final boolean entered;
+
+        ThresholdCrossed(BatterySnapshot snapshot, Limit limit, boolean entered) {
+            super(snapshot);
+            this.limit = limit;
+            this.entered = entered;
+        }
+    }
+
+    // --- SUBSCRIPTIONS ---
+
+    private static class Subscription<T extends PowerEvent> {
+        final Class<T> type;
+        final Executor executor;
+        final Consumer<? super T> listener;
+
+        Subscription(Class<T> type, Executor executor, Consumer<? super T> listener) {
+            this.type = type;
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        void deliver(PowerEvent event) {
+            if (!type.isInstance(event)) return;
+            executor.execute(() -> {
+                try {
+                    listener.accept(type.cast(event));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    private static final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cellsense-events");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Edge detection state, only touched by publish()
+    private static BatterySnapshot previous;
+    private static boolean inMaxZone;
+    private static boolean inMinZone;
+
+    // Moving a limit can put the current level inside (or outside) an alarm zone
+    static {
+        PreferenceManager.addListener((old, now) -> {
+            if (old.maxLimit != now.maxLimit || old.minLimit != now.minLimit) republishThresholds();
+        });
+    }
+
+    // Listener runs on the bus thread. Subscribe to PowerEvent.class to get everything.
+    public static <T extends PowerEvent> Object subscribe(Class<T> type, Consumer<? super T> listener) {
+        return subscribe(type, dispatcher, listener);
+    }
+
+    // Listener runs on the given executor, e.g. Platform::runLater for UI code
+    public static <T extends PowerEvent> Object subscribe(Class<T> type, Executor executor, Consumer<? super T> listener) {
+        Subscription<T> subscription = new Subscription<>(type, executor, listener);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public static void unsubscribe(Object subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    // --- PUBLISHING ---
+
+    // Compares the snapshot with the previous one and queues the resulting edges
+    public static synchronized void publish(BatterySnapshot snapshot) {
+        BatterySnapshot last = previous;
+        previous = snapshot;
+
+        boolean maxZone = AlarmPolicy.atMax(snapshot.level, snapshot.plugged, PreferenceManager.getMaxLimit());
+        boolean minZone = AlarmPolicy.atMin(snapshot.level, snapshot.plugged, PreferenceManager.getMinLimit());
+
+        if (last == null) {
+            dispatch(new LevelChanged(snapshot, -1));
+        } else {
+            if (!last.plugged && snapshot.plugged) dispatch(new PluggedIn(snapshot));
+            if (last.plugged && !snapshot.plugged) dispatch(new Unplugged(snapshot));
+            if (last.level != snapshot.level) dispatch(new LevelChanged(snapshot, last.level));
+            if (snapshot.plugged && snapshot.level >= 100 && (last.level < 100 || !last.plugged)) dispatch(new FullyCharged(snapshot));
+        }
+        if (maxZone != inMaxZone) dispatch(new ThresholdCrossed(snapshot, Limit.MAX, maxZone));
+        if (minZone != inMinZone) dispatch(new ThresholdCrossed(snapshot, Limit.MIN, minZone));
+        inMaxZone = maxZone;
+        inMinZone = minZone;
+    }
+
+    // Re-evaluates the threshold zones against the latest snapshot
+    static void republishThresholds() {
+        BatterySnapshot last;
+        synchronized (PowerEventBus.class) { last = previous; }
+        if (last != null) publish(last);
+    }
+
+    private static void dispatch(PowerEvent event) {
+        dispatcher.execute(() -> {
+            for (Subscription<?> subscription : subscriptions) subscription.deliver(event);
+        });
+    }
+}
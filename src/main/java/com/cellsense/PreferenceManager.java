@@ -1,7 +1,20 @@
 package com.cellsense;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
+// Settings live in memory as one immutable snapshot; getters never touch the backing store
+// (the registry on Windows). Changes swap the snapshot, notify listeners, and are written
+// to Preferences in one batch once they have been quiet for FLUSH_DELAY_MS.
 public class PreferenceManager {
     private static final Preferences prefs = Preferences.userNodeForPackage(App.class);
 
@@ -14,56 +27,187 @@ public class PreferenceManager {
     private static final String KEY_MAX_LOOP = "max_loop";
     private static final String KEY_MIN_LOOP = "min_loop";
 
+    // A slider drag produces dozens of changes; only the value it settles on is written
+    static final long FLUSH_DELAY_MS = 500;
+
+    public static class Settings {
+        public final boolean alarmActive;
+        public final double maxLimit;
+        public final double minLimit;
+        public final String maxSound;
+        public final String minSound;
+        public final boolean maxLoop;
+        public final boolean minLoop;
+
+        public Settings(boolean alarmActive, double maxLimit, double minLimit,
+                        String maxSound, String minSound, boolean maxLoop, boolean minLoop) {
+            this.alarmActive = alarmActive;
+            this.maxLimit = maxLimit;
+            this.minLimit = minLimit;
+            this.maxSound = maxSound;
+            this.minSound = minSound;
+            this.maxLoop = maxLoop;
+            this.minLoop = minLoop;
+        }
+
+        public Settings withAlarmActive(boolean v) { return new Settings(v, maxLimit, minLimit, maxSound, minSound, maxLoop, minLoop); }
+        public Settings withMaxLimit(double v) { return new Settings(alarmActive, v, minLimit, maxSound, minSound, maxLoop, minLoop); }
+        public Settings withMinLimit(double v) { return new Settings(alarmActive, maxLimit, v, maxSound, minSound, maxLoop, minLoop); }
+        public Settings withMaxSound(String v) { return new Settings(alarmActive, maxLimit, minLimit, v, minSound, maxLoop, minLoop); }
+        public Settings withMinSound(String v) { return new Settings(alarmActive, maxLimit, minLimit, maxSound, v, maxLoop, minLoop); }
+        public Settings withMaxLoop(boolean v) { return new Settings(alarmActive, maxLimit, minLimit, maxSound, minSound, v, minLoop); }
+        public Settings withMinLoop(boolean v) { return new Settings(alarmActive, maxLimit, minLimit, maxSound, minSound, maxLoop, v); }
+
+        boolean sameAs(Settings o) {
+            return alarmActive == o.alarmActive && maxLimit == o.maxLimit && minLimit == o.minLimit
+                    && Objects.equals(maxSound, o.maxSound) && Objects.equals(minSound, o.minSound)
+                    && maxLoop == o.maxLoop && minLoop == o.minLoop;
+        }
+    }
+
+    // Called on the thread that made the change, after the new snapshot is visible
+    public interface Listener {
+        void changed(Settings old, Settings now);
+    }
+
+    private static final AtomicReference<Settings> current = new AtomicReference<>(load());
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cellsense-prefs");
+        t.setDaemon(true);
+        return t;
+    });
+    private static ScheduledFuture<?> pendingFlush;
+    private static boolean dirty;
+
+    static {
+        // Don't lose a change made just before exit
+        Runtime.getRuntime().addShutdownHook(new Thread(PreferenceManager::flush, "cellsense-prefs-flush"));
+    }
+
+    // --- SNAPSHOT ---
+
+    public static Settings getSettings() {
+        return current.get();
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Applies the change atomically; no-op changes neither notify nor write
+    public static void update(UnaryOperator<Settings> change) {
+        Settings old, now;
+        do {
+            old = current.get();
+            now = change.apply(old);
+            if (now.sameAs(old)) return;
+        } while (!current.compareAndSet(old, now));
+
+        for (Listener listener : listeners) {
+            try {
+                listener.changed(old, now);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        scheduleFlush();
+    }
+
     // --- ALARM ACTIVE ---
     public static boolean isAlarmActive() {
-        return prefs.getBoolean(KEY_ALARM_ACTIVE, false);
+        return current.get().alarmActive;
     }
     public static void setAlarmActive(boolean active) {
-        prefs.putBoolean(KEY_ALARM_ACTIVE, active);
+        update(s -> s.withAlarmActive(active));
     }
 
     // --- MAX LIMIT ---
     public static double getMaxLimit() {
-        return prefs.getDouble(KEY_MAX_LIMIT, 80.0);
+        return current.get().maxLimit;
     }
     public static void setMaxLimit(double value) {
-        prefs.putDouble(KEY_MAX_LIMIT, value);
+        update(s -> s.withMaxLimit(value));
     }
 
     // --- MIN LIMIT ---
     public static double getMinLimit() {
-        return prefs.getDouble(KEY_MIN_LIMIT, 20.0);
+        return current.get().minLimit;
     }
     public static void setMinLimit(double value) {
-        prefs.putDouble(KEY_MIN_LIMIT, value);
+        update(s -> s.withMinLimit(value));
     }
 
     // --- SOUND PREFERENCES (NEW) ---
     public static String getMaxSound() {
-        return prefs.get(KEY_MAX_SOUND, "Classic Alarm"); // Default
+        return current.get().maxSound;
     }
     public static void setMaxSound(String soundName) {
-        prefs.put(KEY_MAX_SOUND, soundName);
+        update(s -> s.withMaxSound(soundName));
     }
 
     public static String getMinSound() {
-        return prefs.get(KEY_MIN_SOUND, "Classic Alarm"); // Default
+        return current.get().minSound;
     }
     public static void setMinSound(String soundName) {
-        prefs.put(KEY_MIN_SOUND, soundName);
+        update(s -> s.withMinSound(soundName));
     }
     // --- LOOP PREFERENCES ---
     public static boolean isMaxLoop() {
-        return prefs.getBoolean(KEY_MAX_LOOP, true); // Default: Loop ON
+        return current.get().maxLoop;
     }
     public static void setMaxLoop(boolean loop) {
-        prefs.putBoolean(KEY_MAX_LOOP, loop);
+        update(s -> s.withMaxLoop(loop));
     }
 
     public static boolean isMinLoop() {
-        return prefs.getBoolean(KEY_MIN_LOOP, true); // Default: Loop ON
+        return current.get().minLoop;
     }
     public static void setMinLoop(boolean loop) {
-        prefs.putBoolean(KEY_MIN_LOOP, loop);
+        update(s -> s.withMinLoop(loop));
+    }
+
+    // --- BACKING STORE ---
+
+    private static Settings load() {
+        return new Settings(
+                prefs.getBoolean(KEY_ALARM_ACTIVE, false),
+                prefs.getDouble(KEY_MAX_LIMIT, 80.0),
+                prefs.getDouble(KEY_MIN_LIMIT, 20.0),
+                prefs.get(KEY_MAX_SOUND, "Classic Alarm"), // Default
+                prefs.get(KEY_MIN_SOUND, "Classic Alarm"), // Default
+                prefs.getBoolean(KEY_MAX_LOOP, true), // Default: Loop ON
+                prefs.getBoolean(KEY_MIN_LOOP, true)); // Default: Loop ON
+    }
+
+    // Restarts the quiet period on every change
+    private static synchronized void scheduleFlush() {
+        dirty = true;
+        if (pendingFlush != null) pendingFlush.cancel(false);
+        pendingFlush = writer.schedule(PreferenceManager::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Writes the whole snapshot in one go
+    static synchronized void flush() {
+        if (!dirty) return;
+        dirty = false;
+        Settings s = current.get();
+        try {
+            prefs.putBoolean(KEY_ALARM_ACTIVE, s.alarmActive);
+            prefs.putDouble(KEY_MAX_LIMIT, s.maxLimit);
+            prefs.putDouble(KEY_MIN_LIMIT, s.minLimit);
+            prefs.put(KEY_MAX_SOUND, s.maxSound);
+            prefs.put(KEY_MIN_SOUND, s.minSound);
+            prefs.putBoolean(KEY_MAX_LOOP, s.maxLoop);
+            prefs.putBoolean(KEY_MIN_LOOP, s.minLoop);
+            prefs.flush();
+        } catch (BackingStoreException | IllegalStateException e) {
+            e.printStackTrace();
+        }
     }
-}
\ No newline at end of file
+}
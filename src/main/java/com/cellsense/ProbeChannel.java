@@ -0,0 +1,253 @@
+package com.cellsense;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A long-lived helper process that answers battery queries over stdin/stdout.
+// Protocol: we write "<id> <query>\n", the helper answers "<id> <value>\n" (value may be empty).
+// The helper is started lazily, restarted if it dies, and killed if it stops answering.
+// Several requests can be in flight at once: only the write is serialized, and answers are
+// matched to waiting callers by id, so the sampler's parallel probes stay parallel.
+// A new helper is pinged with a cheap query as soon as it starts. A request first waits up to
+// START_TIMEOUT_MS for that answer (PowerShell and the first CIM query are slow to start), then
+// timeoutMs for its own, which callers with their own deadline must keep below it.
+public class ProbeChannel implements AutoCloseable {
+
+    // Stays resident and answers each query from the same WMI session, no process per reading
+    private static final String WMI_HELPER_SCRIPT = String.join("\n",
+            "$ErrorActionPreference = 'SilentlyContinue'",
+            "while ($null -ne ($line = [Console]::In.ReadLine())) {",
+            "  $id, $q = $line.Split(' ', 2)",
+            "  $b = Get-CimInstance -ClassName Win32_Battery | Select-Object -First 1",
+            "  $v = if ($b) { [string]$b.$q } else { '' }",
+            "  [Console]::Out.WriteLine(\"$id $v\")",
+            "  [Console]::Out.Flush()",
+            "}");
+
+    // One running helper and the requests waiting on it
+    private static class Helper {
+        final Process process;
+        final BufferedWriter writer;
+        final Map<Long, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+        final long startedAt = System.nanoTime();
+        final CompletableFuture<Void> ready = new CompletableFuture<>(); // Answered its first line
+
+        Helper(Process process) {
+            this.process = process;
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    public static final long START_TIMEOUT_MS = 10_000;
+
+    private final List<String> command;
+    private final long timeoutMs;
+
+    // Guards starting the helper and writing to it; never held while waiting for an answer
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Helper helper;
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicInteger starts = new AtomicInteger();
+
+    private ProbeChannel(List<String> command, long timeoutMs) {
+        this.command = List.copyOf(command);
+        this.timeoutMs = timeoutMs;
+    }
+
+    // Creates a channel whose helper is killed when the JVM exits
+    public static ProbeChannel open(List<String> command, long timeoutMs) {
+        ProbeChannel channel = new ProbeChannel(command, timeoutMs);
+        Runtime.getRuntime().addShutdownHook(new Thread(channel::close));
+        return channel;
+    }
+
+    // Default Windows helper. -Dcellsense.probe.command="sh scripts/fake_probe.sh" swaps in a stand-in.
+    // Requests time out well inside the sampler's deadline, so a hung helper is caught and replaced
+    // here rather than by the sampler cancelling the probe; the helper is started right away.
+    public static ProbeChannel forWmi() {
+        long timeoutMs = BatterySampler.PROBE_DEADLINE_MS * 2 / 3;
+        String override = System.getProperty("cellsense.probe.command");
+        ProbeChannel channel;
+        if (override != null && !override.isBlank()) {
+            channel = open(List.of(override.trim().split("\\s+")), timeoutMs);
+        } else {
+            String encoded = Base64.getEncoder().encodeToString(WMI_HELPER_SCRIPT.getBytes(StandardCharsets.UTF_16LE));
+            channel = open(List.of("powershell", "-NoProfile", "-NonInteractive", "-EncodedCommand", encoded), timeoutMs);
+        }
+        channel.warmUp();
+        return channel;
+    }
+
+    // Starts the helper in the background so the first request does not pay for its start-up
+    public void warmUp() {
+        Thread.ofVirtual().name("cellsense-probe-warmup").start(() -> {
+            lock.lock();
+            try {
+                ensureStarted();
+            } catch (IOException e) {
+                // The first request starts it again and reports the failure
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Sends one query and waits for its answer. Throws if the helper dies or misses the timeout.
+    // If the caller is interrupted while waiting (the sampler cancelling a late probe), the request
+    // is abandoned and counted as failed like a timeout, a helper that was answering is replaced,
+    // and InterruptedException is rethrown with the interrupt flag set.
+    public String request(String query) throws IOException, InterruptedException {
+        IOException failure = null;
+        // One retry: a helper that died since the last call is restarted transparently
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Helper h = null;
+            long id = nextId.getAndIncrement();
+            CompletableFuture<String> answer = new CompletableFuture<>();
+            long waitMs = timeoutMs;
+            try {
+                lock.lock();
+                try {
+                    h = ensureStarted();
+                    h.pending.put(id, answer);
+                    send(h, id, query);
+                } finally {
+                    lock.unlock();
+                }
+                if (!h.ready.isDone()) {
+                    waitMs = START_TIMEOUT_MS;
+                    h.ready.get(waitMs, TimeUnit.MILLISECONDS);
+                }
+                waitMs = timeoutMs;
+                return answer.get(waitMs, TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                failure = e;
+            } catch (TimeoutException e) {
+                failure = new IOException("Probe helper did not answer within " + waitMs + " ms");
+            } catch (ExecutionException e) {
+                failure = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Metrics.CHANNEL_FAILURES.increment();
+                if (h != null) {
+                    h.pending.remove(id);
+                    // A helper still inside its start-up allowance is slow, not hung; its own timeout still applies
+                    if (h.ready.isDone() || System.nanoTime() - h.startedAt > TimeUnit.MILLISECONDS.toNanos(START_TIMEOUT_MS)) retire(h);
+                }
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+            Metrics.CHANNEL_FAILURES.increment();
+            if (h != null) {
+                h.pending.remove(id);
+                retire(h);
+            }
+        }
+        throw failure;
+    }
+
+    public int getStartCount() {
+        return starts.get();
+    }
+
+    // Requests sent and still waiting for an answer, across the current helper
+    public int getPendingCount() {
+        Helper h = helper;
+        return h == null ? 0 : h.pending.size();
+    }
+
+    @Override
+    public void close() {
+        Helper h = helper;
+        if (h != null) retire(h);
+    }
+
+    // --- HELPERS ---
+
+    // Caller holds lock
+    private Helper ensureStarted() throws IOException {
+        Helper h = helper;
+        if (h != null && h.process.isAlive()) return h;
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Helper started = new Helper(pb.start());
+        starts.incrementAndGet();
+        Metrics.PROCESSES_SPAWNED.increment();
+        helper = started;
+        if (h != null) destroy(h);
+
+        // Each helper has its own reader and pending map, so output from a dead helper never reaches a new request
+        BufferedReader reader = new BufferedReader(new InputStreamReader(started.process.getInputStream(), StandardCharsets.UTF_8));
+        Thread.ofVirtual().name("cellsense-probe-reader").start(() -> {
+            try (reader) {
+                String line;
+                while ((line = reader.readLine()) != null) dispatch(started, line);
+            } catch (IOException ignored) {
+            } finally {
+                IOException exited = new IOException("Probe helper exited");
+                started.ready.completeExceptionally(exited);
+                started.pending.values().forEach(waiting -> waiting.completeExceptionally(exited));
+                started.pending.clear();
+            }
+        });
+        // Nobody waits for the ping; its answer only marks the helper ready
+        send(started, nextId.getAndIncrement(), "Status");
+        return started;
+    }
+
+    // Caller holds lock
+    private static void send(Helper h, long id, String query) throws IOException {
+        h.writer.write(id + " " + query);
+        h.writer.newLine();
+        h.writer.flush();
+    }
+
+    // Hands "<id> <value>" to the request waiting for that id. Late answers to abandoned requests are dropped.
+    private static void dispatch(Helper h, String line) {
+        int space = line.indexOf(' ');
+        try {
+            long id = Long.parseLong(space < 0 ? line.trim() : line.substring(0, space));
+            h.ready.complete(null);
+            CompletableFuture<String> waiting = h.pending.remove(id);
+            if (waiting != null) waiting.complete(space < 0 ? "" : line.substring(space + 1).trim());
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    // Kills a helper that failed, unless a newer one has already replaced it
+    private void retire(Helper h) {
+        lock.lock();
+        try {
+            if (helper != h) return;
+            helper = null;
+        } finally {
+            lock.unlock();
+        }
+        destroy(h);
+    }
+
+    private static void destroy(Helper h) {
+        try { h.writer.close(); } catch (IOException ignored) { }
+        h.process.destroy();
+        try {
+            if (!h.process.waitFor(500, TimeUnit.MILLISECONDS)) h.process.destroyForcibly();
+        } catch (InterruptedException e) {
+            h.process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.cellsense;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Holds the last parsed battery report for a limited time (app time, so simulated runs age it too).
+// Concurrent callers share one in-flight load, so powercfg never runs twice at once.
+// Loads run on their own thread: they block on powercfg, and the parse forks into the common pool.
+public class ReportCache {
+
+    private static final ExecutorService loads = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cellsense-report");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // completedAt is written before the future completes, so a done future always has it
+    private static class Entry {
+        final CompletableFuture<BatteryReportManager.Report> future = new CompletableFuture<>();
+        volatile long completedAt = -1;
+    }
+
+    private final Supplier<BatteryReportManager.Report> loader;
+    private final long ttlMs;
+    private Entry current;
+    // The newest successful load; kept across invalidate() so readers that must not trigger a load have something
+    private volatile BatteryReportManager.Report lastLoaded;
+    private volatile long lastLoadedAt = -1;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ReportCache(Supplier<BatteryReportManager.Report> loader, long ttlMs) {
+        this.loader = loader;
+        this.ttlMs = ttlMs;
+    }
+
+    public synchronized CompletableFuture<BatteryReportManager.Report> get() {
+        Entry entry = current;
+        if (entry != null) {
+            if (!entry.future.isDone()) {
+                coalesced.incrementAndGet();
+                return entry.future;
+            }
+            boolean fresh = AppClock.millis() - entry.completedAt < ttlMs;
+            if (fresh && !entry.future.isCompletedExceptionally()) {
+                hits.incrementAndGet();
+                return entry.future;
+            }
+        }
+
+        misses.incrementAndGet();
+        Entry loading = new Entry();
+        current = loading;
+        loads.execute(() -> load(loading));
+        return loading.future;
+    }
+
+    private void load(Entry entry) {
+        BatteryReportManager.Report report;
+        try {
+            report = loader.get();
+        } catch (Throwable e) {
+            entry.completedAt = AppClock.millis();
+            entry.future.completeExceptionally(e);
+            return;
+        }
+        entry.completedAt = AppClock.millis();
+        lastLoadedAt = entry.completedAt;
+        lastLoaded = report;
+        entry.future.complete(report);
+    }
+
+    // Drops the cached report. A load already running still completes for its callers.
+    public synchronized void invalidate() {
+        current = null;
+    }
+
+    // The last report that finished loading, or null. Never starts a load.
+    public BatteryReportManager.Report peek() {
+        return lastLoaded;
+    }
+
+    // AppClock millis when peek()'s report finished loading, -1 if none has
+    public long getLastLoadedAt() {
+        return lastLoadedAt;
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getMisses() { return misses.get(); }
+}
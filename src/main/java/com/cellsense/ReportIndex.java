@@ -0,0 +1,89 @@
+package com.cellsense;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.cellsense.BatteryReportParser.*;
+
+// Offsets of every section and summary label we care about, found in one scan of the report.
+// Section parsers and summary lookups then jump straight to their range instead of searching again.
+public class ReportIndex {
+
+    // Labels of the "Installed batteries" table
+    public static final String DESIGN_CAPACITY = "DESIGN CAPACITY";
+    public static final String FULL_CHARGE_CAPACITY = "FULL CHARGE CAPACITY";
+    public static final String CYCLE_COUNT = "CYCLE COUNT";
+    private static final String[] SUMMARY_LABELS = {DESIGN_CAPACITY, FULL_CHARGE_CAPACITY, CYCLE_COUNT};
+
+    public final CharSequence html;
+
+    // [start, end) of each section, start = -1 when the report has no such section
+    public int drainGraphStart = -1, drainGraphEnd = -1;
+    public int recentUsageStart = -1, recentUsageEnd = -1;
+    public int capacityStart = -1, capacityEnd = -1;
+
+    // Offset right after the first occurrence of each summary label
+    private final Map<String, Integer> labels = new HashMap<>();
+
+    private ReportIndex(CharSequence html) {
+        this.html = html;
+    }
+
+    public static ReportIndex build(CharSequence html) {
+        ReportIndex index = new ReportIndex(html);
+        int len = html.length();
+        int i = 0;
+        while (i < len) {
+            int lt = indexOf(html, '<', i, len);
+            if (lt < 0) lt = len;
+
+            if (lt > i) index.onText(i, lt);
+            if (lt == len) break;
+
+            int gt = tagEnd(html, lt, len);
+            if (isTag(html, lt, "script")) {
+                int end = indexOf(html, "</script", gt, len);
+                if (end < 0) end = len;
+                int var = indexOf(html, DRAIN_GRAPH, gt, end);
+                if (var >= 0 && index.drainGraphStart < 0) {
+                    index.drainGraphStart = var;
+                    index.drainGraphEnd = end;
+                }
+                i = end;
+                continue;
+            }
+            i = gt + 1;
+        }
+        // A section that runs to the end of the document
+        if (index.recentUsageStart >= 0 && index.recentUsageEnd < 0) index.recentUsageEnd = len;
+        if (index.capacityStart >= 0 && index.capacityEnd < 0) index.capacityEnd = len;
+        return index;
+    }
+
+    private void onText(int from, int to) {
+        if (recentUsageStart < 0 && isText(html, from, to, RECENT_USAGE)) recentUsageStart = from;
+        else if (recentUsageStart >= 0 && recentUsageEnd < 0 && isText(html, from, to, BATTERY_USAGE)) recentUsageEnd = from;
+        else if (capacityStart < 0 && isText(html, from, to, CAPACITY_HISTORY)) capacityStart = from;
+        else if (capacityStart >= 0 && capacityEnd < 0 && isText(html, from, to, LIFE_ESTIMATES)) capacityEnd = from;
+        else if (labels.size() < SUMMARY_LABELS.length) {
+            for (String label : SUMMARY_LABELS) {
+                if (!labels.containsKey(label) && isTextIgnoreCase(html, from, to, label)) labels.put(label, to);
+            }
+        }
+    }
+
+    // Contents of the <td> following the label's cell, trimmed. "0" if the label is missing.
+    public String getSummaryValue(String label) {
+        Integer at = labels.get(label);
+        if (at == null) return "0";
+        int len = html.length();
+        int cellEnd = indexOf(html, "</td>", at, len);
+        if (cellEnd < 0) return "0";
+        int next = indexOf(html, "<td", cellEnd, len);
+        if (next < 0) return "0";
+        int open = indexOf(html, '>', next, len);
+        int close = open < 0 ? -1 : indexOf(html, "</td>", open, len);
+        if (close < 0) return "0";
+        return html.subSequence(open + 1, close).toString().trim();
+    }
+}
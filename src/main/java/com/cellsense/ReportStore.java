@@ -0,0 +1,162 @@
+package com.cellsense;
+
+import com.cellsense.BatteryReportManager.CapacityRecord;
+import com.cellsense.BatteryReportManager.GraphPoint;
+import com.cellsense.BatteryReportManager.ReportData;
+import com.cellsense.BatteryReportManager.UsageRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+// Local copy of every drain point, usage row and capacity row seen in past battery reports.
+// powercfg only keeps a few days of usage, the store keeps everything, one tab-separated file per table.
+// The newest key of each table is the high-water mark: later reports only append what comes after it.
+public class ReportStore {
+
+    private final Path drainFile;
+    private final Path usageFile;
+    private final Path capacityFile;
+
+    // Oldest first, as in the report
+    private final List<GraphPoint> drain = new ArrayList<>();
+    private final List<UsageRecord> usage = new ArrayList<>();
+    private final List<CapacityRecord> capacity = new ArrayList<>();
+    private boolean loaded = false;
+
+    public ReportStore(Path dir) {
+        this.drainFile = dir.resolve("drain.tsv");
+        this.usageFile = dir.resolve("usage.tsv");
+        this.capacityFile = dir.resolve("capacity.tsv");
+    }
+
+    // --- HIGH-WATER MARKS (null when the table is empty) ---
+
+    public synchronized String getDrainMark() {
+        ensureLoaded();
+        return drain.isEmpty() ? null : drain.get(drain.size() - 1).timestamp;
+    }
+
+    public synchronized String getUsageMark() {
+        ensureLoaded();
+        return usage.isEmpty() ? null : usage.get(usage.size() - 1).startTime;
+    }
+
+    public synchronized String getCapacityMark() {
+        ensureLoaded();
+        return capacity.isEmpty() ? null : capacity.get(capacity.size() - 1).date;
+    }
+
+    // --- INGESTION ---
+
+    // Appends rows newer than the marks. A row with the same key as the newest stored one replaces it.
+    public synchronized void ingest(BatteryReportParser.Rows rows) {
+        ensureLoaded();
+        List<GraphPoint> newDrain = new ArrayList<>();
+        for (GraphPoint p : rows.graph) {
+            String mark = drain.isEmpty() ? null : drain.get(drain.size() - 1).timestamp;
+            if (mark != null && p.timestamp.compareTo(mark) < 0) continue;
+            if (p.timestamp.equals(mark)) drain.set(drain.size() - 1, p); else drain.add(p);
+            newDrain.add(p);
+        }
+        List<UsageRecord> newUsage = new ArrayList<>();
+        for (UsageRecord r : rows.usage) {
+            String mark = usage.isEmpty() ? null : usage.get(usage.size() - 1).startTime;
+            if (mark != null && r.startTime.compareTo(mark) < 0) continue;
+            if (r.startTime.equals(mark)) usage.set(usage.size() - 1, r); else usage.add(r);
+            newUsage.add(r);
+        }
+        List<CapacityRecord> newCapacity = new ArrayList<>();
+        for (CapacityRecord r : rows.capacity) {
+            // The current period keeps the same start date while its end date moves forward
+            String mark = capacity.isEmpty() ? null : periodStart(capacity.get(capacity.size() - 1).date);
+            String start = periodStart(r.date);
+            if (mark != null && start.compareTo(mark) < 0) continue;
+            if (start.equals(mark)) capacity.set(capacity.size() - 1, r); else capacity.add(r);
+            newCapacity.add(r);
+        }
+
+        append(drainFile, newDrain, p -> p.timestamp + "\t" + p.percentage);
+        append(usageFile, newUsage, r -> String.join("\t", r.startTime, r.state, r.source, r.capacity, r.mWh));
+        append(capacityFile, newCapacity, r -> String.join("\t", r.date, r.fullCharge, r.designCapacity));
+    }
+
+    // Everything stored, in the order the History view shows it
+    public synchronized ReportData toReportData() {
+        ensureLoaded();
+        ReportData data = new ReportData();
+        data.drainGraph.setAll(drain);
+        List<UsageRecord> newestUsage = new ArrayList<>(usage);
+        Collections.reverse(newestUsage);
+        data.recentUsage.setAll(newestUsage);
+        List<CapacityRecord> newestCapacity = new ArrayList<>(capacity);
+        Collections.reverse(newestCapacity);
+        data.capacityHistory.setAll(newestCapacity);
+        return data;
+    }
+
+    // --- FILE I/O ---
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        // Later lines carry updated values for an earlier key, so the last one wins
+        for (String[] f : read(drainFile, 2)) {
+            GraphPoint p = new GraphPoint(f[0], Double.parseDouble(f[1]));
+            if (!drain.isEmpty() && drain.get(drain.size() - 1).timestamp.equals(p.timestamp)) drain.set(drain.size() - 1, p);
+            else drain.add(p);
+        }
+        for (String[] f : read(usageFile, 5)) {
+            UsageRecord r = new UsageRecord(f[0], f[1], f[2], f[3], f[4]);
+            if (!usage.isEmpty() && usage.get(usage.size() - 1).startTime.equals(r.startTime)) usage.set(usage.size() - 1, r);
+            else usage.add(r);
+        }
+        for (String[] f : read(capacityFile, 3)) {
+            CapacityRecord r = new CapacityRecord(f[0], f[1], f[2]);
+            if (!capacity.isEmpty() && periodStart(capacity.get(capacity.size() - 1).date).equals(periodStart(r.date))) capacity.set(capacity.size() - 1, r);
+            else capacity.add(r);
+        }
+    }
+
+    private static List<String[]> read(Path file, int columns) {
+        List<String[]> rows = new ArrayList<>();
+        if (!Files.exists(file)) return rows;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length != columns) continue;
+                try {
+                    if (columns == 2) Double.parseDouble(parts[1]);
+                    rows.add(parts);
+                } catch (NumberFormatException ignored) {}
+            }
+        } catch (IOException e) { e.printStackTrace(); }
+        return rows;
+    }
+
+    private static <T> void append(Path file, List<T> rows, Function<T, String> format) {
+        if (rows.isEmpty()) return;
+        try {
+            Files.createDirectories(file.getParent());
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                for (T row : rows) writer.println(format.apply(row));
+            }
+        } catch (IOException e) { e.printStackTrace(); }
+    }
+
+    // "2025-10-27 - 2025-11-03" -> "2025-10-27"
+    private static String periodStart(String period) {
+        int dash = period.indexOf(" - ");
+        return dash < 0 ? period : period.substring(0, dash);
+    }
+}
@@ -0,0 +1,159 @@
+package com.cellsense;
+
+// Online time-to-empty / time-to-full estimate from the sample stream.
+// Keeps an exponentially weighted charge rate and its variance, updated in O(1) per sample.
+// Plugging or unplugging is a change point: the estimate starts over. Until the level has moved
+// again, the rate falls back to the last day's minute rollups in the same direction, with a
+// wide band so nothing (the poll scheduler in particular) trusts it too far.
+public class RuntimeEstimator {
+
+    // Weight of the newest rate observation
+    private static final double ALPHA = 0.3;
+    // Width of the confidence band in standard deviations
+    private static final double BAND = 2.0;
+    // The rollup fallback needs this much matching time, and believes it only within a factor of 2
+    private static final double HISTORY_MIN_MINUTES = 10;
+    private static final double HISTORY_MAX_MINUTES = 60;
+    private static final double HISTORY_BAND = 2.0;
+    // Minute buckets further apart than this (the app slept, or polled slowly) are not compared
+    private static final long HISTORY_MAX_GAP_MS = 15 * 60_000;
+
+    private final SampleRing.Rollup history;
+
+    // Result of one query. minutes/low/high are NaN while the estimator is still learning.
+    public static class Estimate {
+        public static final Estimate UNKNOWN = new Estimate(false, Double.NaN, Double.NaN, Double.NaN);
+
+        public final boolean charging;
+        public final double minutes; // Best guess
+        public final double low;     // Optimistic-to-pessimistic band around it
+        public final double high;
+
+        public Estimate(boolean charging, double minutes, double low, double high) {
+            this.charging = charging;
+            this.minutes = minutes;
+            this.low = low;
+            this.high = high;
+        }
+
+        public boolean isKnown() { return !Double.isNaN(minutes); }
+    }
+
+    private boolean started = false;
+    private boolean plugged;
+    // The level only moves in whole percents, so rates are measured between level changes
+    private long anchorTime;
+    private int anchorLevel;
+    private int level;
+    private long lastTime;
+
+    private double rate = Double.NaN; // Percent per minute, signed: > 0 charging, < 0 draining
+    private double variance = 0;
+
+    // No fallback: the estimate stays unknown until the level has moved
+    public RuntimeEstimator() {
+        this(null);
+    }
+
+    // Falls back to the minute rollups of history while learning
+    public RuntimeEstimator(SampleRing history) {
+        this.history = history == null ? null : history.getMinutes();
+    }
+
+    public synchronized void update(long epochMillis, int level, boolean plugged) {
+        if (!started || plugged != this.plugged) {
+            // Change point: the old rate says nothing about the new power source
+            started = true;
+            this.plugged = plugged;
+            anchorTime = epochMillis;
+            anchorLevel = level;
+            rate = Double.NaN;
+            variance = 0;
+        } else if (level != anchorLevel && epochMillis > anchorTime) {
+            double observed = (level - anchorLevel) / ((epochMillis - anchorTime) / 60000.0);
+            if (Double.isNaN(rate)) {
+                rate = observed;
+            } else {
+                double diff = observed - rate;
+                double increment = ALPHA * diff;
+                rate += increment;
+                variance = (1 - ALPHA) * (variance + diff * increment);
+            }
+            anchorTime = epochMillis;
+            anchorLevel = level;
+        }
+        this.level = level;
+        this.lastTime = epochMillis;
+    }
+
+    // Time until empty on battery, until full on AC
+    public synchronized Estimate estimate() {
+        return estimateTo(plugged ? 100 : 0);
+    }
+
+    // Time until the level reaches target in the current direction (e.g. an alarm limit)
+    public synchronized Estimate estimateTo(double target) {
+        if (!started) return Estimate.UNKNOWN;
+        double speed = currentSpeed();
+        if (Double.isNaN(speed)) {
+            speed = historicalSpeed();
+            if (Double.isNaN(speed)) return Estimate.UNKNOWN;
+            double distance = plugged ? target - level : level - target;
+            if (distance <= 0) return new Estimate(plugged, 0, 0, 0);
+            return new Estimate(plugged, distance / speed, distance / (speed * HISTORY_BAND), distance * HISTORY_BAND / speed);
+        }
+
+        double distance = plugged ? target - level : level - target;
+        if (distance <= 0) return new Estimate(plugged, 0, 0, 0);
+
+        double spread = BAND * Math.sqrt(variance);
+        double fast = speed + spread;
+        double slow = speed - spread;
+        return new Estimate(plugged,
+                distance / speed,
+                distance / fast,
+                slow > 0 ? distance / slow : Double.POSITIVE_INFINITY);
+    }
+
+    // Percent per minute in the current direction, NaN while unknown
+    private double currentSpeed() {
+        if (Double.isNaN(rate)) return Double.NaN;
+        double speed = plugged ? rate : -rate;
+        if (speed <= 0) return Double.NaN;
+        // A level that has not moved for a while caps the rate: it cannot be faster than 1% per that span
+        double sinceChange = (lastTime - anchorTime) / 60000.0;
+        if (sinceChange > 0) speed = Math.min(speed, 1.0 / sinceChange);
+        return speed;
+    }
+
+    // Percent per minute in the current direction from the newest minute buckets that were wholly
+    // on AC (plugged) or wholly on battery, NaN if there is not enough of that. The bucket still
+    // filling is skipped. Each step compares the last level of two nearby buckets.
+    private double historicalSpeed() {
+        if (history == null) return Double.NaN;
+        double change = 0;
+        double minutes = 0;
+        for (int i = history.size() - 2; i > 0 && minutes < HISTORY_MAX_MINUTES; i--) {
+            long gap = history.startOf(i) - history.startOf(i - 1);
+            if (gap > HISTORY_MAX_GAP_MS) continue;
+            if (onAc(i) != plugged || onAc(i - 1) != plugged) continue;
+            change += history.lastOf(i) - history.lastOf(i - 1);
+            minutes += gap / 60000.0;
+        }
+        if (minutes < HISTORY_MIN_MINUTES) return Double.NaN;
+        double speed = (plugged ? change : -change) / minutes;
+        return speed > 0 ? speed : Double.NaN;
+    }
+
+    private boolean onAc(int bucket) {
+        return history.acMillisOf(bucket) > 0;
+    }
+
+    // "2 h 05 min", "45 min"
+    public static String format(double minutes) {
+        if (Double.isNaN(minutes) || Double.isInfinite(minutes)) return "--";
+        long total = Math.round(minutes);
+        if (total < 60) return total + " min";
+        return String.format("%d h %02d min", total / 60, total % 60);
+    }
+}
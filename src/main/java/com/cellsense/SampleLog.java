@@ -0,0 +1,97 @@
+package com.cellsense;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Append-only log of battery samples in fixed-width binary records, written through a memory map.
+// Record layout: [epoch seconds: 8][level: 1][flags: 1]. Appending is three puts, no allocation,
+// and the file is never rewritten. Reads walk the mapped bytes directly.
+public class SampleLog implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 10;
+    public static final byte FLAG_PLUGGED = 1;
+    public static final byte FLAG_CHARGING = 2;
+
+    private static final long MAGIC = 0x43534C4F47000001L; // "CSLOG" + version 1
+    private static final int HEADER_SIZE = 8;
+    // The mapping grows in steps; the unused tail is zero-filled, and epoch 0 marks the end of data
+    private static final int GROW_BYTES = RECORD_SIZE * 8192;
+
+    // Receives samples without boxing
+    public interface Visitor {
+        void visit(long epochSeconds, int level, int flags);
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int writePos;
+
+    public SampleLog(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, HEADER_SIZE + GROW_BYTES));
+
+        if (size == 0) {
+            map.putLong(0, MAGIC);
+        } else if (map.getLong(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a CellSense sample log: " + file);
+        }
+
+        // Find the end of the written records
+        writePos = HEADER_SIZE;
+        while (writePos + RECORD_SIZE <= map.capacity() && map.getLong(writePos) != 0) writePos += RECORD_SIZE;
+    }
+
+    public static byte flags(boolean plugged, boolean charging) {
+        return (byte) ((plugged ? FLAG_PLUGGED : 0) | (charging ? FLAG_CHARGING : 0));
+    }
+
+    public synchronized void append(long epochSeconds, int level, byte flags) throws IOException {
+        if (writePos + RECORD_SIZE > map.capacity()) {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) map.capacity() + GROW_BYTES);
+        }
+        map.putLong(writePos, epochSeconds);
+        map.put(writePos + 8, (byte) level);
+        map.put(writePos + 9, flags);
+        writePos += RECORD_SIZE;
+    }
+
+    public synchronized int size() {
+        return (writePos - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    // Visits every sample in write order
+    public synchronized void scan(Visitor visitor) {
+        for (int pos = HEADER_SIZE; pos < writePos; pos += RECORD_SIZE) {
+            visitor.visit(map.getLong(pos), map.get(pos + 8), map.get(pos + 9));
+        }
+    }
+
+    // Visits samples with fromEpoch <= epoch < toEpoch. Samples are appended in time order, so the start is a binary search.
+    public synchronized void scan(long fromEpoch, long toEpoch, Visitor visitor) {
+        int lo = 0, hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (map.getLong(HEADER_SIZE + mid * RECORD_SIZE) < fromEpoch) lo = mid + 1; else hi = mid;
+        }
+        for (int pos = HEADER_SIZE + lo * RECORD_SIZE; pos < writePos; pos += RECORD_SIZE) {
+            long epoch = map.getLong(pos);
+            if (epoch >= toEpoch) break;
+            visitor.visit(epoch, map.get(pos + 8), map.get(pos + 9));
+        }
+    }
+
+    public synchronized void force() {
+        map.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+}
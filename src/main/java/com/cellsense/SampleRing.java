@@ -0,0 +1,145 @@
+package com.cellsense;
+
+import java.util.concurrent.TimeUnit;
+
+// Recent battery samples in primitive arrays, plus minute and hour rollups kept up to date as samples arrive.
+// Adding a sample is O(1) and allocates nothing; the oldest sample is overwritten once the ring is full.
+// Default sizing holds one day of samples at the 2-second cadence (43,200 samples, about 475 KB with rollups).
+public class SampleRing {
+
+    public static final int DAY_AT_2S = 43_200;
+
+    // Receives samples without boxing
+    public interface Visitor {
+        void visit(long epochMillis, int level, int flags);
+    }
+
+    private final long[] times;
+    private final byte[] levels;
+    private final byte[] flags;
+    private int next = 0;  // Slot the next sample goes into
+    private int size = 0;
+
+    private final Rollup minutes;
+    private final Rollup hours;
+
+    public SampleRing() {
+        this(DAY_AT_2S, 24 * 60, 7 * 24);
+    }
+
+    public SampleRing(int capacity, int minuteBuckets, int hourBuckets) {
+        times = new long[capacity];
+        levels = new byte[capacity];
+        flags = new byte[capacity];
+        minutes = new Rollup(TimeUnit.MINUTES.toMillis(1), minuteBuckets);
+        hours = new Rollup(TimeUnit.HOURS.toMillis(1), hourBuckets);
+    }
+
+    public synchronized void add(long epochMillis, int level, boolean plugged) {
+        // Time since the previous sample counts towards "on AC" if the previous sample was plugged
+        long onAc = 0;
+        if (size > 0) {
+            int prev = (next - 1 + times.length) % times.length;
+            if ((flags[prev] & SampleLog.FLAG_PLUGGED) != 0) onAc = Math.max(0, epochMillis - times[prev]);
+        }
+
+        times[next] = epochMillis;
+        levels[next] = (byte) level;
+        flags[next] = SampleLog.flags(plugged, plugged && level < 100);
+        next = (next + 1) % times.length;
+        if (size < times.length) size++;
+
+        minutes.add(epochMillis, level, onAc);
+        hours.add(epochMillis, level, onAc);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Visits samples with epochMillis >= since, oldest first
+    public synchronized void forEachSince(long since, Visitor visitor) {
+        int oldest = (next - size + times.length) % times.length;
+        // Timestamps increase around the ring, so the first match is a binary search
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[(oldest + mid) % times.length] < since) lo = mid + 1; else hi = mid;
+        }
+        for (int i = lo; i < size; i++) {
+            int slot = (oldest + i) % times.length;
+            visitor.visit(times[slot], levels[slot], flags[slot]);
+        }
+    }
+
+    public Rollup getMinutes() { return minutes; }
+    public Rollup getHours() { return hours; }
+
+    // Heap used by the arrays of the ring and both rollups, object headers excluded
+    public long footprintBytes() {
+        return (long) times.length * (Long.BYTES + 2) + minutes.footprintBytes() + hours.footprintBytes();
+    }
+
+    // Fixed-width time buckets (min / max / mean / last level and time on AC), oldest overwritten first.
+    // Index 0 is the oldest bucket still held, size() - 1 the current one.
+    public static class Rollup {
+        private final long width;
+        private final long[] start;
+        private final byte[] min;
+        private final byte[] max;
+        private final byte[] last;
+        private final int[] sum;
+        private final int[] count;
+        private final long[] acMillis;
+        private int current = -1;
+        private int size = 0;
+
+        Rollup(long widthMillis, int buckets) {
+            width = widthMillis;
+            start = new long[buckets];
+            min = new byte[buckets];
+            max = new byte[buckets];
+            last = new byte[buckets];
+            sum = new int[buckets];
+            count = new int[buckets];
+            acMillis = new long[buckets];
+        }
+
+        synchronized void add(long epochMillis, int level, long onAc) {
+            long bucketStart = epochMillis - Math.floorMod(epochMillis, width);
+            if (current < 0 || start[current] != bucketStart) {
+                current = (current + 1) % start.length;
+                if (size < start.length) size++;
+                start[current] = bucketStart;
+                min[current] = max[current] = (byte) level;
+                sum[current] = 0;
+                count[current] = 0;
+                acMillis[current] = 0;
+            }
+            if (level < min[current]) min[current] = (byte) level;
+            if (level > max[current]) max[current] = (byte) level;
+            last[current] = (byte) level;
+            sum[current] += level;
+            count[current]++;
+            acMillis[current] += onAc;
+        }
+
+        public long getWidthMillis() { return width; }
+        public synchronized int size() { return size; }
+        public synchronized long startOf(int i) { return start[slot(i)]; }
+        public synchronized int minOf(int i) { return min[slot(i)]; }
+        public synchronized int maxOf(int i) { return max[slot(i)]; }
+        public synchronized int lastOf(int i) { return last[slot(i)]; }
+        public synchronized double meanOf(int i) { int s = slot(i); return count[s] == 0 ? Double.NaN : (double) sum[s] / count[s]; }
+        public synchronized long acMillisOf(int i) { return acMillis[slot(i)]; }
+
+        private int slot(int i) {
+            if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+            return (current - (size - 1 - i) + start.length) % start.length;
+        }
+
+        long footprintBytes() {
+            return (long) start.length * (Long.BYTES * 2 + 3 + Integer.BYTES * 2);
+        }
+    }
+}
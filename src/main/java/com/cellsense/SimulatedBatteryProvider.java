@@ -0,0 +1,174 @@
+package com.cellsense;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// A battery that follows a curve over AppClock time instead of reading hardware.
+// Selected with -Dcellsense.battery.provider=sim, usually together with -Dcellsense.sim.speed.
+//   -Dcellsense.sim.replay=<file>  replays a recorded sample log (the cellsense_history.bin format), looping
+//   -Dcellsense.sim.script=drain=12,charge=40,low=15,high=95
+//                                  scripted sawtooth: drain at 12 %/h from high to low, then charge at 40 %/h
+public class SimulatedBatteryProvider implements BatteryProvider {
+
+    // Level and plug state at a point in app time
+    public interface Curve {
+        double level(long millis);
+        boolean plugged(long millis);
+    }
+
+    private final Curve curve;
+
+    public SimulatedBatteryProvider(Curve curve) {
+        this.curve = curve;
+    }
+
+    public static SimulatedBatteryProvider fromProperties() {
+        String replay = System.getProperty("cellsense.sim.replay");
+        if (replay != null) {
+            try {
+                return new SimulatedBatteryProvider(Replay.load(Path.of(replay), AppClock.millis()));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Cannot replay " + replay + ", using the scripted curve: " + e.getMessage());
+            }
+        }
+        return new SimulatedBatteryProvider(Sawtooth.parse(System.getProperty("cellsense.sim.script", ""), AppClock.millis()));
+    }
+
+    public Curve getCurve() {
+        return curve;
+    }
+
+    @Override
+    public String getName() {
+        return "simulated";
+    }
+
+    @Override
+    public int getBatteryLevel() {
+        return (int) Math.ceil(curve.level(AppClock.millis()));
+    }
+
+    @Override
+    public boolean isPluggedIn() {
+        return curve.plugged(AppClock.millis());
+    }
+
+    // Roughly a 3-cell pack: 10.8 V empty to 12.6 V full
+    @Override
+    public double getVoltage() {
+        return 10.8 + 1.8 * curve.level(AppClock.millis()) / 100.0;
+    }
+
+    // --- CURVES ---
+
+    // Discharge from high to low, charge back to high, repeat. Starts full and draining at origin.
+    public static class Sawtooth implements Curve {
+        public final double drainPerHour;
+        public final double chargePerHour;
+        public final double low;
+        public final double high;
+        private final long origin;
+        private final long drainMillis;
+        private final long cycleMillis;
+
+        public Sawtooth(double drainPerHour, double chargePerHour, double low, double high, long origin) {
+            if (drainPerHour <= 0 || chargePerHour <= 0 || low >= high) {
+                throw new IllegalArgumentException("drain and charge must be positive and low below high");
+            }
+            this.drainPerHour = drainPerHour;
+            this.chargePerHour = chargePerHour;
+            this.low = low;
+            this.high = high;
+            this.origin = origin;
+            this.drainMillis = (long) ((high - low) / drainPerHour * 3_600_000);
+            this.cycleMillis = drainMillis + (long) ((high - low) / chargePerHour * 3_600_000);
+        }
+
+        static Sawtooth parse(String script, long origin) {
+            double drain = 12, charge = 40, low = 15, high = 95;
+            for (String part : script.split(",")) {
+                String[] kv = part.split("=");
+                if (kv.length != 2) continue;
+                double value = Double.parseDouble(kv[1].trim());
+                switch (kv[0].trim()) {
+                    case "drain" -> drain = value;
+                    case "charge" -> charge = value;
+                    case "low" -> low = value;
+                    case "high" -> high = value;
+                    default -> System.err.println("Unknown sim script key: " + kv[0]);
+                }
+            }
+            return new Sawtooth(drain, charge, low, high, origin);
+        }
+
+        private long phase(long millis) {
+            return Math.floorMod(millis - origin, cycleMillis);
+        }
+
+        @Override
+        public double level(long millis) {
+            long t = phase(millis);
+            if (t < drainMillis) return high - drainPerHour * t / 3_600_000.0;
+            return low + chargePerHour * (t - drainMillis) / 3_600_000.0;
+        }
+
+        @Override
+        public boolean plugged(long millis) {
+            return phase(millis) >= drainMillis;
+        }
+    }
+
+    // Plays back a recorded sample log as a step curve, starting at origin and looping at the end
+    public static class Replay implements Curve {
+        private final long[] times;  // millis from the first sample
+        private final byte[] levels;
+        private final byte[] flags;
+        private final long origin;
+        private final long length;
+
+        Replay(long[] times, byte[] levels, byte[] flags, long origin) {
+            this.times = times;
+            this.levels = levels;
+            this.flags = flags;
+            this.origin = origin;
+            this.length = times[times.length - 1] + 60_000; // hold the last sample for a minute before looping
+        }
+
+        static Replay load(Path file, long origin) throws IOException {
+            try (SampleLog log = new SampleLog(file)) {
+                int n = log.size();
+                if (n == 0) throw new IllegalArgumentException("no samples");
+                long[] times = new long[n];
+                byte[] levels = new byte[n];
+                byte[] flags = new byte[n];
+                int[] count = {0};
+                long[] first = {Long.MIN_VALUE};
+                log.scan((epochSeconds, level, f) -> {
+                    if (first[0] == Long.MIN_VALUE) first[0] = epochSeconds;
+                    times[count[0]] = (epochSeconds - first[0]) * 1000;
+                    levels[count[0]] = (byte) level;
+                    flags[count[0]] = (byte) f;
+                    count[0]++;
+                });
+                return new Replay(Arrays.copyOf(times, count[0]), Arrays.copyOf(levels, count[0]), Arrays.copyOf(flags, count[0]), origin);
+            }
+        }
+
+        private int indexAt(long millis) {
+            long t = Math.floorMod(millis - origin, length);
+            int i = Arrays.binarySearch(times, t);
+            return i >= 0 ? i : Math.max(0, -i - 2);
+        }
+
+        @Override
+        public double level(long millis) {
+            return levels[indexAt(millis)];
+        }
+
+        @Override
+        public boolean plugged(long millis) {
+            return (flags[indexAt(millis)] & SampleLog.FLAG_PLUGGED) != 0;
+        }
+    }
+}
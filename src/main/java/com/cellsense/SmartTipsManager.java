@@ -3,9 +3,14 @@ package com.cellsense;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class SmartTipsManager {
 
+    // Hours on AC at or above FULL_LEVEL in the last day before the "unplug" tip shows
+    private static final double PARKED_HOURS_TIP = 4;
+    private static final int FULL_LEVEL = 95;
+
     public static class Tip {
         public String title;
         public String description;
@@ -57,7 +62,14 @@ public class SmartTipsManager {
                         "Limit charging to 80% to extend battery lifespan by 2x.", "#2f81f7")); // Blue
             }
 
-            // 4. General Tip (Fallback)
+            // 4. Analyze Habits (last day of samples, no report needed)
+            double parked = hoursParkedAtFull();
+            if (parked >= PARKED_HOURS_TIP) {
+                tips.add(new Tip("Unplug When Full",
+                        "Your laptop sat plugged in above " + FULL_LEVEL + "% for " + Math.round(parked) + " of the last 24 hours. Unplug it or lower the charge limit.", "#e3b341"));
+            }
+
+            // 5. General Tip (Fallback)
             if (tips.size() < 2) {
                 tips.add(new Tip("Heat is the Enemy",
                         "Avoid using heavy apps while charging to prevent heat damage.", "#8b949e")); // Grey
@@ -67,6 +79,17 @@ public class SmartTipsManager {
         });
     }
 
+    // Time on AC in the hour buckets of the last day that never dropped below FULL_LEVEL
+    private static double hoursParkedAtFull() {
+        SampleRing.Rollup hours = BatterySampler.getRecent().getHours();
+        long since = AppClock.millis() - TimeUnit.DAYS.toMillis(1);
+        long acMillis = 0;
+        for (int i = 0; i < hours.size(); i++) {
+            if (hours.startOf(i) >= since && hours.minOf(i) >= FULL_LEVEL) acMillis += hours.acMillisOf(i);
+        }
+        return acMillis / (double) hours.getWidthMillis();
+    }
+
     private static double parse(String val) {
         if (val == null) return 0;
         return Double.parseDouble(val.replaceAll("[^0-9.]", ""));
@@ -5,17 +5,43 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// All playback state is owned by one audio thread. The public methods only queue commands,
+// so callers on the FX thread or the event bus never race on the flags below.
+// The same thread also times preview cut-offs, so there is no Timer per preview.
 public class SoundManager {
     private static final Map<String, String> SOUND_FILES = new HashMap<>();
+    private static final long PREVIEW_MS = 5000;
+
+    // Decoded clips by file name, filled by preload() so the alarm path never decodes.
+    // A future per file: whoever adds it decodes, outside the map, and later callers wait on it.
+    private static final Map<String, CompletableFuture<AudioClip>> clips = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService audio = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cellsense-audio");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // --- AUDIO THREAD STATE (only touched by commands running on "audio") ---
     private static AudioClip currentClip;
     private static boolean isAlarmPlaying = false;
 
     //Protects the preview from being killed by the battery checker
     private static boolean isPreviewing = false;
-    private static Timer previewTimer;
+    private static ScheduledFuture<?> previewStop;
+    // Alarm that arrived (or was playing) during a preview; started when the preview ends.
+    // Alarms are edge-triggered, so dropping it would mean it never sounds for this crossing.
+    private static String pendingSound;
+    private static boolean pendingLoop;
+    private static String alarmSound;
+    private static boolean alarmLoop;
 
     static {
         SOUND_FILES.put("Classic Alarm", "/alarm.mp3");
@@ -28,51 +54,97 @@ public class SoundManager {
         return SOUND_FILES.keySet();
     }
 
+    // Decodes every clip and returns when they are all ready. Blocks the caller, so run it off the
+    // FX and audio threads (App does it as the "sounds" startup task); alarm commands are never
+    // queued behind it, and a cold alarm meanwhile waits only for its own clip.
+    public static void preload() {
+        for (String fileName : SOUND_FILES.values()) {
+            if (!fileName.equals("beep")) clipFor(fileName);
+        }
+    }
+
     // --- PLAY ALARM (Called by Battery Checker) ---
     public static void playAlarm(String soundName, boolean shouldLoop) {
-        // If user is previewing a sound, don't interrupt them with the alarm logic yet
-        if (isPreviewing) return;
+        audio.execute(() -> {
+            // If user is previewing a sound, don't interrupt them; the alarm starts when the preview ends
+            if (isPreviewing) {
+                pendingSound = soundName;
+                pendingLoop = shouldLoop;
+                return;
+            }
+
+            if (isAlarmPlaying) return;
 
-        if (isAlarmPlaying) return;
+            startAlarm(soundName, shouldLoop);
+        });
+    }
 
+    // Audio thread only
+    private static void startAlarm(String soundName, boolean shouldLoop) {
+        FlightEvents.Alarm event = new FlightEvents.Alarm();
+        event.begin();
         startSound(soundName, shouldLoop ? AudioClip.INDEFINITE : 1);
         isAlarmPlaying = true;
+        alarmSound = soundName;
+        alarmLoop = shouldLoop;
+        commit(event, soundName, shouldLoop, false);
     }
 
     // --- PREVIEW SOUND (Called by User) ---
     public static void previewSound(String soundName) {
-        // Force stop everything to start fresh
-        forceStop();
-
-        isPreviewing = true; // Raise the flag!
-        startSound(soundName, AudioClip.INDEFINITE); // Loop it so it lasts 5 seconds
-
-        // Kill it after 5 seconds
-        previewTimer = new Timer();
-        previewTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                forceStop(); // Timer done, kill sound
+        audio.execute(() -> {
+            // An alarm still sounding is resumed after the preview
+            if (isAlarmPlaying && !isPreviewing && (alarmLoop || (currentClip != null && currentClip.isPlaying()))) {
+                pendingSound = alarmSound;
+                pendingLoop = alarmLoop;
             }
-        }, 5000);
+            // Force stop everything to start fresh
+            forceStop();
+
+            isPreviewing = true; // Raise the flag!
+            FlightEvents.Alarm event = new FlightEvents.Alarm();
+            event.begin();
+            startSound(soundName, AudioClip.INDEFINITE); // Loop it so it lasts 5 seconds
+            commit(event, soundName, true, true);
+
+            // Kill it after 5 seconds
+            previewStop = audio.schedule(SoundManager::endPreview, PREVIEW_MS, TimeUnit.MILLISECONDS);
+        });
     }
 
     // --- STOP ALARM (Called by Battery Checker) ---
     public static void stopAlarm() {
-        // CRITICAL FIX: If we are previewing, IGNORE the battery checker's request to stop.
-        if (isPreviewing) return;
+        audio.execute(() -> {
+            // CRITICAL FIX: If we are previewing, IGNORE the battery checker's request to stop.
+            // It still cancels an alarm waiting for the preview to end.
+            if (isPreviewing) {
+                pendingSound = null;
+                return;
+            }
+
+            forceStop();
+        });
+    }
 
+    // Audio thread only
+    private static void endPreview() {
+        previewStop = null;
         forceStop();
+        if (pendingSound != null) {
+            String sound = pendingSound;
+            pendingSound = null;
+            startAlarm(sound, pendingLoop);
+        }
     }
 
-    // Internal helper to actually stop sound
+    // Internal helper to actually stop sound. Audio thread only.
     private static void forceStop() {
         isAlarmPlaying = false;
         isPreviewing = false; // Lower the flag
 
-        if (previewTimer != null) {
-            previewTimer.cancel();
-            previewTimer = null;
+        if (previewStop != null) {
+            previewStop.cancel(false);
+            previewStop = null;
         }
 
         if (currentClip != null && currentClip.isPlaying()) {
@@ -80,6 +152,16 @@ public class SoundManager {
         }
     }
 
+    // Audio thread only
+    private static void commit(FlightEvents.Alarm event, String soundName, boolean looping, boolean preview) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.sound = soundName;
+        event.looping = looping;
+        event.preview = preview;
+        event.commit();
+    }
+
     private static void startSound(String soundName, int cycleCount) {
         String fileName = SOUND_FILES.getOrDefault(soundName, "beep");
 
@@ -89,13 +171,8 @@ public class SoundManager {
         }
 
         try {
-            // Reload if different sound
-            if (currentClip == null || !fileName.equals(currentClip.getSource())) {
-                URL url = SoundManager.class.getResource(fileName);
-                if (url != null) {
-                    currentClip = new AudioClip(url.toExternalForm());
-                }
-            }
+            // Normally already decoded by preload(); only a cold start decodes here
+            currentClip = clipFor(fileName);
 
             if (currentClip != null) {
                 currentClip.setCycleCount(cycleCount);
@@ -107,4 +184,25 @@ public class SoundManager {
             java.awt.Toolkit.getDefaultToolkit().beep();
         }
     }
-}
\ No newline at end of file
+
+    // Loads a clip once; concurrent callers for the same file wait for the same decode, and
+    // lookups of other files never wait for it. A failed decode is dropped so the next call retries.
+    private static AudioClip clipFor(String fileName) {
+        CompletableFuture<AudioClip> loading = new CompletableFuture<>();
+        CompletableFuture<AudioClip> existing = clips.putIfAbsent(fileName, loading);
+        if (existing != null) return existing.join();
+
+        AudioClip clip = null;
+        try {
+            URL url = SoundManager.class.getResource(fileName);
+            if (url != null) clip = new AudioClip(url.toExternalForm());
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            // Completed even if the decode threw an Error, so nobody waits on it forever
+            if (clip == null) clips.remove(fileName, loading);
+            loading.complete(clip);
+        }
+        return clip;
+    }
+}
@@ -0,0 +1,96 @@
+package com.cellsense;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Startup bookkeeping: milestones measured from JVM start, plus init tasks that run in parallel
+// off the FX thread once their dependencies are done. report() prints both and checks the
+// time-to-first-frame budget (-Dcellsense.ttff.budget=<ms>), but only when asked to with
+// -Dcellsense.startup.report=true; normal launches stay quiet. StartupTimeTest holds the budget.
+public class StartupProfiler {
+
+    public static final long TTFF_BUDGET_MS = Long.getLong("cellsense.ttff.budget", 2000);
+    private static final boolean REPORT = Boolean.getBoolean("cellsense.startup.report");
+
+    public static class Phase {
+        public final String name;
+        public final long atMs;       // since JVM start
+        public final long durationMs; // 0 for milestones
+
+        Phase(String name, long atMs, long durationMs) {
+            this.name = name;
+            this.atMs = atMs;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private static final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final List<Phase> phases = new ArrayList<>();
+    private static final ExecutorService initExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private static volatile long firstFrameMs = -1;
+
+    private static long sinceStart() {
+        return System.currentTimeMillis() - jvmStart;
+    }
+
+    // Records a milestone, e.g. "fx-start"
+    public static void mark(String name) {
+        record(new Phase(name, sinceStart(), 0));
+    }
+
+    // Called once the first frame of the window has been laid out and is about to render
+    public static void firstFrame() {
+        if (firstFrameMs >= 0) return;
+        firstFrameMs = sinceStart();
+        mark("first-frame");
+    }
+
+    // -1 while no frame was shown (e.g. started with --minimized)
+    public static long getFirstFrameMs() {
+        return firstFrameMs;
+    }
+
+    // Runs body on its own thread once every dependency has completed. A failing task is
+    // logged and still completes, so tasks depending on it are not held back forever.
+    public static CompletableFuture<Void> task(String name, Runnable body, CompletableFuture<?>... after) {
+        return CompletableFuture.allOf(after).handle((ignored, error) -> null).thenRunAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                body.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            record(new Phase(name, sinceStart(), (System.nanoTime() - start) / 1_000_000));
+        }, initExecutor);
+    }
+
+    public static List<Phase> getPhases() {
+        synchronized (phases) {
+            return new ArrayList<>(phases);
+        }
+    }
+
+    // Prints the timeline, oldest first; a no-op unless reporting is on
+    public static void report() {
+        if (!REPORT) return;
+        StringBuilder out = new StringBuilder("[startup]");
+        for (Phase p : getPhases()) {
+            out.append(' ').append(p.name).append('@').append(p.atMs).append("ms");
+            if (p.durationMs > 0) out.append(" (").append(p.durationMs).append("ms)");
+        }
+        System.out.println(out);
+        if (firstFrameMs > TTFF_BUDGET_MS) {
+            System.err.println("[startup] time to first frame " + firstFrameMs + " ms is over the " + TTFF_BUDGET_MS + " ms budget");
+        }
+    }
+
+    private static void record(Phase phase) {
+        synchronized (phases) {
+            phases.add(phase);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.cellsense;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Linux backend: reads /sys/class/power_supply/BAT*/ directly, no process is spawned.
+// The root is a constructor argument so a fake sysfs tree can stand in for the real one.
+// Batteries that report charge (µAh) and current (µA) instead of energy_now / power_now
+// are converted to Wh and W with voltage_now.
+public class SysfsBatteryProvider implements BatteryProvider {
+
+    public static final Path DEFAULT_ROOT = Path.of("/sys/class/power_supply");
+
+    private final Path battery;
+    private final Path capacity;
+    private final Path status;
+    private final Path voltageNow;
+    private final Path energyNow;
+    private final Path powerNow;
+    private final Path chargeNow;
+    private final Path currentNow;
+
+    // sysfs attributes are a few bytes long; one buffer is reused for every read
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+
+    public SysfsBatteryProvider(Path battery) {
+        this.battery = battery;
+        this.capacity = battery.resolve("capacity");
+        this.status = battery.resolve("status");
+        this.voltageNow = battery.resolve("voltage_now");
+        this.energyNow = battery.resolve("energy_now");
+        this.powerNow = battery.resolve("power_now");
+        this.chargeNow = battery.resolve("charge_now");
+        this.currentNow = battery.resolve("current_now");
+    }
+
+    // Returns a provider for the first BAT* entry under root, or null if there is none.
+    // Throws UncheckedIOException if root exists but cannot be listed.
+    public static SysfsBatteryProvider detect(Path root) {
+        if (!Files.isDirectory(root)) return null;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, "BAT*")) {
+            for (Path entry : entries) {
+                if (Files.isReadable(entry.resolve("capacity"))) return new SysfsBatteryProvider(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return null;
+    }
+
+    public Path getBatteryPath() { return battery; }
+
+    @Override
+    public String getName() { return "sysfs"; }
+
+    @Override
+    public synchronized int getBatteryLevel() {
+        long value = readLong(capacity);
+        if (value < 0) throw new UncheckedIOException(new IOException("Unreadable " + capacity));
+        return (int) Math.min(100, value);
+    }
+
+    @Override
+    public synchronized boolean isPluggedIn() {
+        // "Charging", "Full" and "Not charging" all mean the adapter is connected
+        if (!read(status)) throw new UncheckedIOException(new IOException("Unreadable " + status));
+        return !startsWith("Discharging") && !startsWith("Unknown");
+    }
+
+    @Override
+    public synchronized double getVoltage() {
+        long microVolts = readLong(voltageNow);
+        return microVolts < 0 ? Double.NaN : microVolts / 1_000_000.0;
+    }
+
+    @Override
+    public synchronized double getEnergyNow() {
+        long microWattHours = readLong(energyNow);
+        if (microWattHours >= 0) return microWattHours / 1_000_000.0;
+        return times(readLong(chargeNow), readLong(voltageNow));
+    }
+
+    @Override
+    public synchronized double getPowerNow() {
+        long microWatts = readLong(powerNow);
+        if (microWatts >= 0) return microWatts / 1_000_000.0;
+        return times(readLong(currentNow), readLong(voltageNow));
+    }
+
+    // --- HELPERS ---
+
+    // Fills the shared buffer with the attribute contents, flipped for reading. False if the
+    // attribute does not exist or is empty (not every battery has every attribute); any other
+    // I/O error is a failed reading and is thrown.
+    private boolean read(Path file) {
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) { }
+            buffer.flip();
+            return buffer.hasRemaining();
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Parses the leading decimal number without building a String, -1 if absent or not a number
+    private long readLong(Path file) {
+        if (!read(file)) return -1;
+        long value = 0;
+        boolean digits = false;
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b < '0' || b > '9') break;
+            value = value * 10 + (b - '0');
+            digits = true;
+        }
+        return digits ? value : -1;
+    }
+
+    // µAh x µV -> Wh and µA x µV -> W; NaN if either attribute is missing
+    private static double times(long micros, long microVolts) {
+        if (micros < 0 || microVolts < 0) return Double.NaN;
+        return (micros / 1_000_000.0) * (microVolts / 1_000_000.0);
+    }
+
+    private boolean startsWith(String prefix) {
+        if (buffer.remaining() < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(buffer.position() + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package com.cellsense;
+
+import javafx.animation.PauseTransition;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Builds every view once and keeps it. Coming back to a view only refreshes its data.
+// When the user has sat on a view for IDLE_MS, the data of the next view in navigation order
+// is fetched on a low-priority thread, so the first visit there finds it ready.
+// FX thread only.
+public class ViewRegistry {
+
+    static final long IDLE_MS = 5000;
+
+    private static class Entry {
+        final String name;
+        final Supplier<Node> factory;
+        final Runnable refresh;
+        final Runnable prefetch;
+        Node node;
+        boolean prefetched;
+
+        Entry(String name, Supplier<Node> factory, Runnable refresh, Runnable prefetch) {
+            this.name = name;
+            this.factory = factory;
+            this.refresh = refresh;
+            this.prefetch = prefetch;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Consumer<Node> display;
+    private final BooleanSupplier canPrefetch;
+    private final PauseTransition idle = new PauseTransition(Duration.millis(IDLE_MS));
+    private Entry current;
+
+    // display puts a view on screen; prefetching only happens while canPrefetch says so (e.g. window visible)
+    public ViewRegistry(Consumer<Node> display, BooleanSupplier canPrefetch) {
+        this.display = display;
+        this.canPrefetch = canPrefetch;
+        idle.setOnFinished(e -> prefetchNext());
+    }
+
+    // Registration order is navigation order. refresh and prefetch may be null.
+    public void register(String name, Supplier<Node> factory, Runnable refresh, Runnable prefetch) {
+        entries.add(new Entry(name, factory, refresh, prefetch));
+    }
+
+    public void show(String name) {
+        Entry entry = find(name);
+        if (entry.node == null) {
+            FlightEvents.ViewBuild event = new FlightEvents.ViewBuild();
+            event.begin();
+            entry.node = entry.factory.get();
+            event.end();
+            if (event.shouldCommit()) {
+                event.view = entry.name;
+                event.nodes = countNodes(entry.node);
+                event.prefetched = entry.prefetched;
+                event.commit();
+            }
+        } else if (entry != current && entry.refresh != null) {
+            entry.refresh.run();
+        }
+        current = entry;
+        display.accept(entry.node);
+        idle.playFromStart();
+    }
+
+    // The built node, or null if the view was never shown
+    public Node getIfBuilt(String name) {
+        return find(name).node;
+    }
+
+    // Restarts the idle countdown, e.g. when the window comes back from the tray
+    public void touch() {
+        if (current != null) idle.playFromStart();
+    }
+
+    private void prefetchNext() {
+        if (current == null || !canPrefetch.getAsBoolean()) return;
+        int index = entries.indexOf(current);
+        for (int i = 1; i < entries.size(); i++) {
+            Entry next = entries.get((index + i) % entries.size());
+            if (next.node != null || next.prefetched || next.prefetch == null) continue;
+            next.prefetched = true;
+            Thread t = new Thread(next.prefetch, "cellsense-prefetch-" + next.name);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.start();
+            return;
+        }
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) count += countNodes(child);
+        }
+        return count;
+    }
+
+    private Entry find(String name) {
+        for (Entry entry : entries) {
+            if (entry.name.equals(name)) return entry;
+        }
+        throw new IllegalArgumentException("Unknown view: " + name);
+    }
+}
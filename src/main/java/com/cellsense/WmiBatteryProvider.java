@@ -0,0 +1,59 @@
+package com.cellsense;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+
+// Windows backend: asks WMI through one persistent helper process instead of a wmic spawn per reading
+public class WmiBatteryProvider implements BatteryProvider {
+
+    private final ProbeChannel channel;
+
+    public WmiBatteryProvider() {
+        this(ProbeChannel.forWmi());
+    }
+
+    public WmiBatteryProvider(ProbeChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public String getName() { return "wmi"; }
+
+    @Override
+    public int getBatteryLevel() {
+        return Integer.parseInt(require("EstimatedChargeRemaining"));
+    }
+
+    @Override
+    public boolean isPluggedIn() {
+        // BatteryStatus 2 = AC Connected
+        return Integer.parseInt(require("BatteryStatus")) == 2;
+    }
+
+    @Override
+    public double getVoltage() {
+        // Many batteries leave DesignVoltage empty; that is "unknown", not a failure
+        String value = query("DesignVoltage");
+        return value.matches("\\d+") ? Double.parseDouble(value) / 1000.0 : Double.NaN; // mV -> V
+    }
+
+    // The property must come back numeric, anything else is a failed reading
+    private String require(String property) {
+        String value = query(property);
+        if (!value.matches("\\d+")) throw new UncheckedIOException(new IOException("Win32_Battery." + property + " = '" + value + "'"));
+        return value;
+    }
+
+    // Returns the raw Win32_Battery property; throws if the helper does not answer
+    private String query(String property) {
+        try {
+            return channel.request(property);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while reading " + property));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
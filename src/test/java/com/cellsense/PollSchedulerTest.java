@@ -0,0 +1,112 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs PollScheduler's pacing (Pacer, with the real RuntimeEstimator and SampleRing behind it)
+// against simulated batteries in virtual time, window hidden and alarms on, and compares it with
+// the old fixed 2 s poll: how many samples each takes, and how late each limit crossing is noticed.
+class PollSchedulerTest {
+
+    private static final double MAX_LIMIT = 80;
+    private static final double MIN_LIMIT = 20;
+    private static final long MAX_LAG_MS = 30_000;
+    private static final long FIXED_MS = 2_000;
+    private static final long HOUR = 3_600_000L;
+
+    // Level over virtual time
+    private interface Battery {
+        double level(long millis);
+    }
+
+    // Outcome of one run
+    private record Run(long samples, long fixedSamples, long crossedAt, long noticedAt) {
+        double reduction() { return (double) fixedSamples / samples; }
+        long lag() { return noticedAt - crossedAt; }
+    }
+
+    @ParameterizedTest(name = "drain 55% -> 20% at {0} %/min")
+    @ValueSource(doubles = {0.2, 0.5, 1, 2, 5})
+    void drainingBatteryIsSampledRarelyAndAlarmIsNotLate(double rate) {
+        long duration = (long) ((55 - MIN_LIMIT) / rate * 60_000) + HOUR;
+        Run run = run(duration, false, false, linear(55, -rate));
+        assertTrue(run.crossedAt() >= 0);
+        assertTrue(run.noticedAt() >= 0, "crossing missed");
+        assertTrue(run.lag() <= MAX_LAG_MS, "noticed " + run.lag() + " ms late");
+        assertTrue(run.reduction() >= 10, "only " + run.reduction() + "x fewer samples");
+    }
+
+    @ParameterizedTest(name = "charge 40% -> 80% at {0} %/min")
+    @ValueSource(doubles = {0.5, 1, 2})
+    void chargingBatteryIsSampledRarelyAndAlarmIsNotLate(double rate) {
+        long duration = (long) ((MAX_LIMIT - 40) / rate * 60_000) + HOUR;
+        Run run = run(duration, true, false, linear(40, rate));
+        assertTrue(run.noticedAt() >= 0, "crossing missed");
+        assertTrue(run.lag() <= MAX_LAG_MS, "noticed " + run.lag() + " ms late");
+        assertTrue(run.reduction() >= 10, "only " + run.reduction() + "x fewer samples");
+    }
+
+    @Test
+    void parkedAtFullWithSingleShotAlarmIdles() {
+        // The common steady state: on AC at 100% with the max limit at 80, for a day
+        Run run = run(24 * HOUR, true, false, linear(100, 0));
+        assertEquals(0, run.crossedAt());
+        assertEquals(0, run.noticedAt());
+        assertTrue(run.reduction() >= 25, "only " + run.reduction() + "x fewer samples");
+    }
+
+    @Test
+    void loopingAlarmKeepsTheFastPaceWhileSounding() {
+        Run run = run(HOUR, true, true, linear(100, 0));
+        assertEquals(run.fixedSamples(), run.samples());
+    }
+
+    @Test
+    void visibleWindowAndDisabledAlarmsIgnoreTheBattery() {
+        BatterySnapshot snapshot = new BatterySnapshot(50, false, Double.NaN, 0, 0);
+        RuntimeEstimator.Estimate unknown = RuntimeEstimator.Estimate.UNKNOWN;
+        assertEquals(PollScheduler.MIN_DELAY_MS, PollScheduler.nextDelayMillis(snapshot, MIN_LIMIT, unknown, true, true, false));
+        assertEquals(PollScheduler.MAX_DELAY_MS, PollScheduler.nextDelayMillis(snapshot, MIN_LIMIT, unknown, false, false, false));
+        assertEquals(PollScheduler.LEARNING_DELAY_MS, PollScheduler.nextDelayMillis(snapshot, MIN_LIMIT, unknown, false, true, false));
+    }
+
+    private static Battery linear(double start, double perMinute) {
+        return millis -> Math.max(0, Math.min(100, start + perMinute * millis / 60_000.0));
+    }
+
+    private static Run run(long duration, boolean plugged, boolean loop, Battery battery) {
+        PreferenceManager.Settings settings = new PreferenceManager.Settings(true, MAX_LIMIT, MIN_LIMIT,
+                "Classic Alarm", "Classic Alarm", loop, loop);
+        SampleRing ring = new SampleRing();
+        RuntimeEstimator estimator = new RuntimeEstimator(ring);
+        PollScheduler.Pacer pacer = new PollScheduler.Pacer();
+
+        long samples = 0;
+        long noticedAt = -1;
+        for (long t = 0; t < duration; ) {
+            int level = (int) Math.ceil(battery.level(t));
+            BatterySnapshot snapshot = new BatterySnapshot(level, plugged, Double.NaN, t, 0);
+            samples++;
+            ring.add(t, level, plugged);
+            estimator.update(t, level, plugged);
+            if (noticedAt < 0 && inZone(level, plugged)) noticedAt = t;
+            t += pacer.nextDelay(snapshot, settings, estimator, false, t);
+        }
+        return new Run(samples, (duration + FIXED_MS - 1) / FIXED_MS, firstCrossing(battery, plugged, duration), noticedAt);
+    }
+
+    private static boolean inZone(int level, boolean plugged) {
+        return AlarmPolicy.atMax(level, plugged, MAX_LIMIT) || AlarmPolicy.atMin(level, plugged, MIN_LIMIT);
+    }
+
+    // First moment the reported (whole-percent) level is inside an alarm zone, -1 if never
+    private static long firstCrossing(Battery battery, boolean plugged, long duration) {
+        for (long t = 0; t < duration; t += 100) {
+            if (inZone((int) Math.ceil(battery.level(t)), plugged)) return t;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,28 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreferenceSettingsTest {
+
+    private static final PreferenceManager.Settings BASE =
+            new PreferenceManager.Settings(true, 80, 20, "Classic Alarm", "Gentle Chime", true, true);
+
+    @Test
+    void sameAsComparesEveryField() {
+        assertTrue(BASE.sameAs(BASE.withMaxLimit(80)));
+        assertFalse(BASE.sameAs(BASE.withMaxLimit(85)));
+        assertFalse(BASE.sameAs(BASE.withMinSound("System Beep")));
+        assertFalse(BASE.sameAs(BASE.withMinLoop(false)));
+    }
+
+    @Test
+    void sameAsAcceptsNullSounds() {
+        // The setters accept any value, including null
+        PreferenceManager.Settings noSound = BASE.withMaxSound(null).withMinSound(null);
+        assertTrue(noSound.sameAs(BASE.withMaxSound(null).withMinSound(null)));
+        assertFalse(noSound.sameAs(BASE));
+        assertFalse(BASE.sameAs(noSound));
+    }
+}
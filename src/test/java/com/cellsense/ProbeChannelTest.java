@@ -0,0 +1,146 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// ProbeChannel against the stand-in helper (scripts/fake_probe.sh): concurrent requests get their
+// own answers, a hung helper is replaced whether the channel's timeout or the caller's deadline
+// gives up first, and a helper that exits is restarted transparently.
+class ProbeChannelTest {
+
+    private static final String SCRIPT = "scripts/fake_probe.sh";
+
+    private final ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+    private ProbeChannel channel;
+
+    @BeforeAll
+    static void needsShell() {
+        assumeTrue(Files.isExecutable(Path.of("/bin/sh")), "stand-in helper needs /bin/sh");
+    }
+
+    @AfterEach
+    void close() {
+        if (channel != null) channel.close();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void answersQueriesFromOneHelper() throws Exception {
+        channel = ProbeChannel.open(List.of("sh", SCRIPT), 1000);
+        assertEquals("80", channel.request("EstimatedChargeRemaining"));
+        assertEquals("", channel.request("NoSuchProperty"));
+        assertEquals(1, channel.getStartCount());
+    }
+
+    @Test
+    void concurrentRequestsAreMatchedById() throws Exception {
+        channel = ProbeChannel.open(List.of("sh", SCRIPT), 1000);
+        String[] queries = {"EstimatedChargeRemaining", "BatteryStatus", "DesignVoltage"};
+        String[] expected = {"80", "2", "11400"};
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String query = queries[i % queries.length];
+            results.add(pool.submit(() -> channel.request(query)));
+        }
+        for (int i = 0; i < results.size(); i++) assertEquals(expected[i % expected.length], results.get(i).get());
+        assertEquals(1, channel.getStartCount());
+        assertEquals(0, channel.getPendingCount());
+    }
+
+    @Test
+    void hungHelperTimesOutAndIsReplaced() throws Exception {
+        channel = ProbeChannel.open(List.of("sh", SCRIPT), 1000);
+        assertEquals("2", channel.request("BatteryStatus"));
+        long failures = Metrics.CHANNEL_FAILURES.getCount();
+
+        // Unanswered on both attempts: the caller gets an IOException, each attempt replaces the helper
+        long start = System.nanoTime();
+        assertThrows(IOException.class, () -> channel.request("Hang"));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2500));
+        assertEquals(failures + 2, Metrics.CHANNEL_FAILURES.getCount());
+
+        assertEquals("2", channel.request("BatteryStatus"));
+        assertEquals(3, channel.getStartCount());
+        assertEquals(0, channel.getPendingCount());
+    }
+
+    @Test
+    void exitedHelperIsRestarted() throws Exception {
+        channel = ProbeChannel.open(List.of("sh", SCRIPT), 1000);
+        assertEquals("80", channel.request("EstimatedChargeRemaining"));
+        // Both attempts end their helper
+        assertThrows(IOException.class, () -> channel.request("Exit"));
+
+        int before = channel.getStartCount();
+        assertEquals("80", channel.request("EstimatedChargeRemaining"));
+        assertEquals(before + 1, channel.getStartCount());
+    }
+
+    @Test
+    void cancelledRequestsAreCleanedUp() throws Exception {
+        // Channel timeout longer than the caller's deadline: only the cancellation ends each request
+        channel = ProbeChannel.open(List.of("sh", SCRIPT), 5000);
+        assertEquals("80", channel.request("EstimatedChargeRemaining"));
+        long failures = Metrics.CHANNEL_FAILURES.getCount();
+
+        for (int i = 0; i < 4; i++) cancelAtDeadline(pool.submit(() -> channel.request("Hang")));
+
+        awaitTrue(() -> Metrics.CHANNEL_FAILURES.getCount() == failures + 4 && channel.getPendingCount() == 0);
+        assertEquals("80", channel.request("EstimatedChargeRemaining"));
+        assertEquals(5, channel.getStartCount(), "each hung helper is replaced");
+    }
+
+    @Test
+    void wmiChannelGivesUpBeforeTheSamplerDeadline() throws Exception {
+        // The production channel, cancelled from outside exactly as BatterySampler does
+        String previous = System.setProperty("cellsense.probe.command", "sh " + SCRIPT);
+        try {
+            channel = ProbeChannel.forWmi();
+        } finally {
+            if (previous == null) System.clearProperty("cellsense.probe.command"); else System.setProperty("cellsense.probe.command", previous);
+        }
+        assertEquals("80", channel.request("EstimatedChargeRemaining"));
+        int starts = channel.getStartCount();
+        long failures = Metrics.CHANNEL_FAILURES.getCount();
+
+        for (int i = 0; i < 4; i++) cancelAtDeadline(pool.submit(() -> channel.request("Hang")));
+
+        // Each round: the first attempt times out inside the deadline, the retry is cancelled by it
+        awaitTrue(() -> Metrics.CHANNEL_FAILURES.getCount() == failures + 8 && channel.getPendingCount() == 0);
+        assertTrue(channel.getStartCount() >= starts + 4, "hung helpers are replaced");
+        assertEquals("80", channel.request("EstimatedChargeRemaining"));
+    }
+
+    // Same as BatterySampler.await: wait until the deadline, then cancel with interrupt
+    private static void cancelAtDeadline(Future<String> probe) throws Exception {
+        try {
+            probe.get(BatterySampler.PROBE_DEADLINE_MS, TimeUnit.MILLISECONDS);
+            fail("hung request answered");
+        } catch (TimeoutException e) {
+            probe.cancel(true);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!condition.getAsBoolean() && System.nanoTime() < end) Thread.sleep(20);
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,96 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ReportCache with a stand-in loader instead of powercfg
+class ReportCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private BatteryReportManager.Report load() {
+        return new BatteryReportManager.Report(Map.of("CycleCount", Integer.toString(loads.incrementAndGet())), null);
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ReportCache cache = new ReportCache(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return load();
+        }, 60_000);
+
+        List<CompletableFuture<BatteryReportManager.Report>> callers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) callers.add(cache.get());
+        release.countDown();
+        for (CompletableFuture<BatteryReportManager.Report> caller : callers) assertEquals("1", caller.join().summary.get("CycleCount"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(19, cache.getCoalesced());
+    }
+
+    @Test
+    void finishedLoadIsFreshTheMomentItIsDone() throws Exception {
+        ReportCache cache = new ReportCache(this::load, 60_000);
+        // Callers that see the load complete must be served from it, never start a second powercfg run
+        for (int i = 0; i < 200; i++) {
+            CompletableFuture<BatteryReportManager.Report> first = cache.get();
+            CompletableFuture<CompletableFuture<BatteryReportManager.Report>> second = first.thenApplyAsync(report -> cache.get());
+            assertSame(first.join(), second.join().join());
+            cache.invalidate();
+        }
+        assertEquals(200, loads.get());
+        assertEquals(200, cache.getHits());
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        ReportCache cache = new ReportCache(() -> {
+            if (attempts.incrementAndGet() == 1) throw new CompletionException(new IllegalStateException("powercfg failed"));
+            return load();
+        }, 60_000);
+
+        assertThrows(CompletionException.class, () -> cache.get().join());
+        assertNull(cache.peek());
+        assertEquals("1", cache.get().join().summary.get("CycleCount"));
+        assertEquals(2, cache.getMisses());
+        assertNotNull(cache.peek());
+    }
+
+    @Test
+    void expiredReportIsLoadedAgain() throws Exception {
+        ReportCache cache = new ReportCache(this::load, 50);
+        assertEquals("1", cache.get().join().summary.get("CycleCount"));
+        assertEquals("1", cache.get().join().summary.get("CycleCount"));
+        Thread.sleep(80);
+        assertEquals("2", cache.get().join().summary.get("CycleCount"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void loadsDoNotRunInTheCommonPool() {
+        AtomicInteger pooled = new AtomicInteger();
+        ReportCache cache = new ReportCache(() -> {
+            if (Thread.currentThread().getName().startsWith("ForkJoinPool")) pooled.incrementAndGet();
+            return load();
+        }, 60_000);
+        cache.get().join();
+        assertEquals(0, pooled.get());
+    }
+}
@@ -0,0 +1,55 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuntimeEstimatorTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    void learnsTheRateFromLevelChanges() {
+        RuntimeEstimator estimator = new RuntimeEstimator();
+        // 1% every 2 minutes on battery
+        for (int i = 0; i <= 20; i++) estimator.update(T0 + i * 120_000L, 80 - i, false);
+
+        RuntimeEstimator.Estimate estimate = estimator.estimate();
+        assertFalse(estimate.charging);
+        assertEquals(120, estimate.minutes, 1e-6);
+    }
+
+    @Test
+    void unknownAfterUnplugWithoutHistory() {
+        RuntimeEstimator estimator = new RuntimeEstimator();
+        estimator.update(T0, 90, true);
+        estimator.update(T0 + 60_000, 90, false);
+        assertFalse(estimator.estimate().isKnown());
+    }
+
+    @Test
+    void fallsBackToTheMinuteRollupsAfterAChangePoint() {
+        SampleRing ring = new SampleRing();
+        RuntimeEstimator estimator = new RuntimeEstimator(ring);
+        long t = T0;
+        int level = 90;
+        // 40 minutes on battery at 0.5%/min, sampled every 30 s, then 10 minutes on AC
+        for (int i = 0; i < 80; i++, t += 30_000) {
+            if (i % 4 == 0 && i > 0) level--;
+            feed(ring, estimator, t, level, false);
+        }
+        for (int i = 0; i < 20; i++, t += 30_000) feed(ring, estimator, t, level, true);
+
+        // Just unplugged: the live rate is unknown, the rollups remember the drain
+        feed(ring, estimator, t, level, false);
+        RuntimeEstimator.Estimate estimate = estimator.estimateTo(level - 10);
+        assertTrue(estimate.isKnown());
+        assertEquals(10 / 0.5, estimate.minutes, 2.0);
+        assertTrue(estimate.low < estimate.minutes && estimate.high > estimate.minutes, "fallback carries a wide band");
+    }
+
+    private static void feed(SampleRing ring, RuntimeEstimator estimator, long time, int level, boolean plugged) {
+        ring.add(time, level, plugged);
+        estimator.update(time, level, plugged);
+    }
+}
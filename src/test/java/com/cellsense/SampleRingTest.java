@@ -0,0 +1,55 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampleRingTest {
+
+    private static final long T0 = 1_700_000_040_000L - Math.floorMod(1_700_000_040_000L, 3_600_000L); // On an hour boundary
+
+    @Test
+    void minuteRollupTracksMinMaxMeanLastAndTimeOnAc() {
+        SampleRing ring = new SampleRing(100, 10, 4);
+        ring.add(T0, 50, false);
+        ring.add(T0 + 20_000, 49, true);
+        ring.add(T0 + 40_000, 52, true);   // 20 s on AC since the previous, plugged sample
+        ring.add(T0 + 60_000, 53, false);  // New minute; 20 s on AC still credited to it
+
+        SampleRing.Rollup minutes = ring.getMinutes();
+        assertEquals(2, minutes.size());
+        assertEquals(T0, minutes.startOf(0));
+        assertEquals(49, minutes.minOf(0));
+        assertEquals(52, minutes.maxOf(0));
+        assertEquals(52, minutes.lastOf(0));
+        assertEquals(151 / 3.0, minutes.meanOf(0), 1e-9);
+        assertEquals(20_000, minutes.acMillisOf(0));
+        assertEquals(20_000, minutes.acMillisOf(1));
+
+        SampleRing.Rollup hours = ring.getHours();
+        assertEquals(1, hours.size());
+        assertEquals(49, hours.minOf(0));
+        assertEquals(53, hours.maxOf(0));
+        assertEquals(40_000, hours.acMillisOf(0));
+    }
+
+    @Test
+    void oldestBucketsAndSamplesAreOverwritten() {
+        SampleRing ring = new SampleRing(5, 3, 2);
+        for (int i = 0; i < 10; i++) ring.add(T0 + i * 60_000L, i, false);
+
+        assertEquals(5, ring.size());
+        SampleRing.Rollup minutes = ring.getMinutes();
+        assertEquals(3, minutes.size());
+        assertEquals(T0 + 7 * 60_000L, minutes.startOf(0));
+        assertEquals(9, minutes.lastOf(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> minutes.startOf(3));
+
+        List<Integer> levels = new ArrayList<>();
+        ring.forEachSince(T0 + 6 * 60_000L, (time, level, flags) -> levels.add(level));
+        assertEquals(List.of(6, 7, 8, 9), levels);
+    }
+}
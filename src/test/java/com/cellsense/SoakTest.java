@@ -0,0 +1,101 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The real PollScheduler -> BatterySampler -> PowerEventBus -> HistoryManager pipeline and the
+// app's AlarmController run against the simulated battery on a 1000x clock. Every threshold
+// crossing of the curve must be reported and must start the alarm.
+// 6 simulated hours of a fast curve by default (about 20 s); longer runs with e.g.
+//   mvn -B test -Dtest=SoakTest -Dcellsense.soak.hours=720 -Dcellsense.sim.script=drain=12,charge=40
+// Surefire gives each test class its own JVM, so the properties below are set before any app class reads them.
+class SoakTest {
+
+    private static final long HOUR_MS = 3_600_000L;
+    // Crossings this close to the end may legitimately not have been sampled yet
+    private static final long END_GRACE_MS = 10 * 60_000L;
+
+    @TempDir
+    static Path home;
+
+    private final List<Long> maxEntries = new ArrayList<>();
+    private final List<Long> minEntries = new ArrayList<>();
+    private final List<AlarmPolicy.Decision> entryDecisions = new ArrayList<>();
+    private final AtomicInteger played = new AtomicInteger();
+
+    @BeforeAll
+    static void simulate() {
+        // Data and preferences go to the temporary home
+        System.setProperty("user.home", home.toString());
+        System.setProperty("java.util.prefs.userRoot", home.toString());
+        System.setProperty("cellsense.battery.provider", "sim");
+        if (System.getProperty("cellsense.sim.speed") == null) System.setProperty("cellsense.sim.speed", "1000");
+        // A 2-hour cycle, three of each crossing in the default run
+        if (System.getProperty("cellsense.sim.script") == null) System.setProperty("cellsense.sim.script", "drain=60,charge=120");
+    }
+
+    @Test
+    void everyCrossingIsReportedAndSoundsTheAlarm() throws Exception {
+        double hours = Double.parseDouble(System.getProperty("cellsense.soak.hours", "6"));
+        AlarmController alarms = new AlarmController(new AlarmController.Speaker() {
+            @Override
+            public void play(String soundName, boolean loop) {
+                played.incrementAndGet();
+            }
+
+            @Override
+            public void stop() {
+            }
+        });
+
+        PreferenceManager.setAlarmActive(true);
+        PowerEventBus.subscribe(PowerEventBus.ThresholdCrossed.class, event -> {
+            AlarmPolicy.Decision decision = alarms.check(event.snapshot);
+            if (!event.entered) return;
+            synchronized (this) {
+                (event.limit == PowerEventBus.Limit.MAX ? maxEntries : minEntries).add(event.snapshot.timestamp);
+                entryDecisions.add(decision);
+            }
+        });
+        HistoryManager.init();
+        // The curve starts when the provider is created; do that now rather than on the first probe
+        SimulatedBatteryProvider.Curve curve = ((SimulatedBatteryProvider) BatteryManager.getProvider()).getCurve();
+        long simStart = AppClock.millis();
+        PollScheduler.start();
+
+        Thread.sleep(AppClock.toRealMillis((long) (hours * HOUR_MS)));
+        long simEnd = AppClock.millis();
+
+        // Ground truth: step the curve once per simulated second and note every zone entry
+        List<Long> expectedMax = new ArrayList<>(), expectedMin = new ArrayList<>();
+        boolean inMax = false, inMin = false;
+        for (long t = simStart; t < simEnd - END_GRACE_MS; t += 1000) {
+            int level = (int) Math.ceil(curve.level(t));
+            boolean plugged = curve.plugged(t);
+            boolean max = AlarmPolicy.atMax(level, plugged, PreferenceManager.getMaxLimit());
+            boolean min = AlarmPolicy.atMin(level, plugged, PreferenceManager.getMinLimit());
+            if (max && !inMax) expectedMax.add(t);
+            if (min && !inMin) expectedMin.add(t);
+            inMax = max;
+            inMin = min;
+        }
+
+        synchronized (this) {
+            assertFalse(expectedMax.isEmpty() || expectedMin.isEmpty(), "the curve never reached a limit");
+            assertTrue(maxEntries.size() >= expectedMax.size(), "max limit: " + expectedMax.size() + " crossings, " + maxEntries.size() + " reported");
+            assertTrue(minEntries.size() >= expectedMin.size(), "min limit: " + expectedMin.size() + " crossings, " + minEntries.size() + " reported");
+            assertFalse(entryDecisions.contains(AlarmPolicy.Decision.QUIET) || entryDecisions.contains(AlarmPolicy.Decision.OFF),
+                    "a crossing did not start the alarm: " + entryDecisions);
+            assertEquals(entryDecisions.size(), played.get());
+        }
+        assertTrue(HistoryManager.getSampleLog().size() > 0, "no samples logged");
+    }
+}
@@ -0,0 +1,76 @@
+package com.cellsense;
+
+import javafx.application.Application;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+// Launches the app in a fresh JVM and fails if its first frame comes later than
+// StartupProfiler.TTFF_BUDGET_MS (-Dcellsense.ttff.budget=<ms>). The window is rendered by
+// JavaFX's headless Monocle platform with the software pipeline, so no display is needed, and the
+// battery is simulated. The child gets its own home directory, so nothing lands in the real one.
+// Skipped, not failed, where JavaFX's native libraries cannot be loaded.
+class StartupTimeTest {
+
+    private static final long LAUNCH_TIMEOUT_MS = 60_000;
+
+    @Test
+    void firstFrameIsWithinTheBudget(@TempDir Path home) throws Exception {
+        List<String> command = List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "-Duser.home=" + home,
+                "-Djava.awt.headless=true",
+                "-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw",
+                "-Dcellsense.battery.provider=sim",
+                Child.class.getName());
+        Process child = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        long firstFrameMs = -1;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith(Child.PREFIX)) firstFrameMs = Long.parseLong(line.substring(Child.PREFIX.length()));
+                else output.append(line).append('\n');
+            }
+        } finally {
+            if (!child.waitFor(LAUNCH_TIMEOUT_MS, TimeUnit.MILLISECONDS)) child.destroyForcibly();
+        }
+
+        // A machine without JavaFX's native text stack (pango, freetype) cannot show any window at all
+        assumeFalse(firstFrameMs < 0 && output.toString().contains("UnsatisfiedLinkError"),
+                "JavaFX native libraries are missing on this machine");
+        assertTrue(firstFrameMs >= 0, "no first frame:\n" + output);
+        assertTrue(firstFrameMs <= StartupProfiler.TTFF_BUDGET_MS,
+                "first frame after " + firstFrameMs + " ms, budget is " + StartupProfiler.TTFF_BUDGET_MS + " ms:\n" + output);
+    }
+
+    // Child JVM: starts the app as a normal launch would, reports the first frame and quits
+    static class Child {
+        static final String PREFIX = "first-frame-ms=";
+
+        public static void main(String[] args) throws Exception {
+            Thread launcher = new Thread(() -> Application.launch(App.class, args), "launcher");
+            launcher.setDaemon(true);
+            launcher.start();
+
+            long deadline = System.currentTimeMillis() + LAUNCH_TIMEOUT_MS;
+            // launch() only returns, or throws, if the app failed to start
+            while (StartupProfiler.getFirstFrameMs() < 0 && launcher.isAlive() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            System.out.println(PREFIX + StartupProfiler.getFirstFrameMs());
+            System.exit(0);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.cellsense;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Points the sysfs backend at a fake /sys/class/power_supply tree in a temp directory.
+// Values are written the way the kernel does: integers in micro-units, newline-terminated.
+class SysfsBatteryProviderTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void chargingBattery() throws IOException {
+        Path bat = battery("BAT0", "capacity", "63", "status", "Charging",
+                "voltage_now", "12450000", "energy_now", "31200000", "power_now", "18500000");
+
+        SysfsBatteryProvider provider = SysfsBatteryProvider.detect(root);
+        assertNotNull(provider);
+        assertEquals(bat, provider.getBatteryPath());
+        assertEquals(63, provider.getBatteryLevel());
+        assertTrue(provider.isPluggedIn());
+        assertEquals(12.45, provider.getVoltage(), 1e-9);
+        assertEquals(31.2, provider.getEnergyNow(), 1e-9);
+        assertEquals(18.5, provider.getPowerNow(), 1e-9);
+    }
+
+    @Test
+    void dischargingBattery() throws IOException {
+        battery("BAT1", "capacity", "27", "status", "Discharging",
+                "voltage_now", "11020000", "energy_now", "13400000", "power_now", "9100000");
+
+        SysfsBatteryProvider provider = SysfsBatteryProvider.detect(root);
+        assertNotNull(provider);
+        assertEquals(27, provider.getBatteryLevel());
+        assertFalse(provider.isPluggedIn());
+        assertEquals(13.4, provider.getEnergyNow(), 1e-9);
+        assertEquals(9.1, provider.getPowerNow(), 1e-9);
+    }
+
+    @Test
+    void fullAndNotChargingCountAsPluggedIn() throws IOException {
+        Path bat = battery("BAT0", "capacity", "100", "status", "Full");
+        SysfsBatteryProvider provider = SysfsBatteryProvider.detect(root);
+        assertTrue(provider.isPluggedIn());
+
+        write(bat, "status", "Not charging");
+        assertTrue(provider.isPluggedIn());
+        write(bat, "status", "Unknown");
+        assertFalse(provider.isPluggedIn());
+    }
+
+    @Test
+    void missingEnergyFilesFallBackToCharge() throws IOException {
+        // Batteries that only expose charge_now (µAh) and current_now (µA)
+        battery("BAT0", "capacity", "80", "status", "Discharging",
+                "voltage_now", "11000000", "charge_now", "4000000", "current_now", "1500000");
+
+        SysfsBatteryProvider provider = SysfsBatteryProvider.detect(root);
+        assertEquals(44.0, provider.getEnergyNow(), 1e-9);  // 4 Ah x 11 V
+        assertEquals(16.5, provider.getPowerNow(), 1e-9);   // 1.5 A x 11 V
+    }
+
+    @Test
+    void missingOptionalAttributesAreNaN() throws IOException {
+        battery("BAT0", "capacity", "50", "status", "Discharging", "charge_now", "4000000");
+
+        SysfsBatteryProvider provider = SysfsBatteryProvider.detect(root);
+        assertTrue(Double.isNaN(provider.getVoltage()));
+        // charge_now alone cannot be converted without voltage_now
+        assertTrue(Double.isNaN(provider.getEnergyNow()));
+        assertTrue(Double.isNaN(provider.getPowerNow()));
+    }
+
+    @Test
+    void noBatteryPresent() throws IOException {
+        assertNull(SysfsBatteryProvider.detect(root.resolve("does-not-exist")));
+        assertNull(SysfsBatteryProvider.detect(root));
+
+        // Mains adapters and BAT entries without a capacity are not batteries we can read
+        battery("AC", "online", "1");
+        Files.createDirectories(root.resolve("BAT0"));
+        assertNull(SysfsBatteryProvider.detect(root));
+    }
+
+    @Test
+    void removedBatteryFailsInsteadOfReportingZero() throws IOException {
+        Path bat = battery("BAT0", "capacity", "42", "status", "Discharging");
+        SysfsBatteryProvider provider = SysfsBatteryProvider.detect(root);
+
+        Files.delete(bat.resolve("capacity"));
+        Files.delete(bat.resolve("status"));
+        assertThrows(UncheckedIOException.class, provider::getBatteryLevel);
+        assertThrows(UncheckedIOException.class, provider::isPluggedIn);
+    }
+
+    @Test
+    void garbledLevelFails() throws IOException {
+        battery("BAT0", "capacity", "n/a", "status", "Charging");
+        assertThrows(UncheckedIOException.class, SysfsBatteryProvider.detect(root)::getBatteryLevel);
+    }
+
+    // Creates root/name with the given attribute/value pairs
+    private Path battery(String name, String... attributes) throws IOException {
+        Path dir = Files.createDirectories(root.resolve(name));
+        for (int i = 0; i < attributes.length; i += 2) write(dir, attributes[i], attributes[i + 1]);
+        return dir;
+    }
+
+    private static void write(Path dir, String attribute, String value) throws IOException {
+        Files.writeString(dir.resolve(attribute), value + "\n");
+    }
+}